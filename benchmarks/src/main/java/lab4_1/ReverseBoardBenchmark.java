@@ -0,0 +1,114 @@
+package lab4_1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * lab4_1黑白棋棋盘的翻转判断。canPlaceAndFlip会直接翻转棋盘上的棋子，
+ * 所以每次调用前先把棋盘恢复成基准局面（连同增量维护的棋子数）；恢复的开销由restore单独测量。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReverseBoardBenchmark {
+    // 开局、中局、残局分别随机走的手数
+    @Param({"4", "24", "48"})
+    public int plies;
+
+    private ReverseBoard board;
+    private Piece[][] template;
+    private Piece piece;
+    private Player player;
+    private int row;
+    private int col;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(20240501L);
+        do {
+            board = new ReverseBoard();
+            piece = Piece.BLACK;
+        } while (!playRandomMoves(random));
+        player = new Player("玩家", piece);
+        template = new Piece[board.SIZE][];
+        for (int i = 0; i < board.SIZE; i++) {
+            template[i] = board.grid[i].clone();
+        }
+        int[] move = validMoves(piece).get(0);
+        row = move[0];
+        col = move[1];
+    }
+
+    @Benchmark
+    public ReverseBoard restore() {
+        for (int i = 0; i < template.length; i++) {
+            System.arraycopy(template[i], 0, board.grid[i], 0, template[i].length);
+        }
+        board.recount();
+        return board;
+    }
+
+    @Benchmark
+    public boolean canPlaceAndFlip() {
+        restore();
+        return board.canPlaceAndFlip(row, col, piece, player);
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        return board.isValidMove(row, col, piece);
+    }
+
+    // 双方轮流随机落子，无处落子时pass；对局提前结束则返回false
+    private boolean playRandomMoves(SplittableRandom random) {
+        Player mover = new Player("玩家", piece);
+        for (int i = 0; i < plies; i++) {
+            List<int[]> moves = validMoves(piece);
+            if (moves.isEmpty()) {
+                piece = opponent(piece);
+                moves = validMoves(piece);
+                if (moves.isEmpty()) {
+                    return false;
+                }
+            }
+            int[] move = moves.get(random.nextInt(moves.size()));
+            board.canPlaceAndFlip(move[0], move[1], piece, mover);
+            board.grid[move[0]][move[1]] = piece;
+            piece = opponent(piece);
+        }
+        return !validMoves(piece).isEmpty();
+    }
+
+    private List<int[]> validMoves(Piece side) {
+        List<int[]> moves = new ArrayList<>();
+        for (int r = 0; r < board.SIZE; r++) {
+            for (int c = 0; c < board.SIZE; c++) {
+                if (board.isValidMove(r, c, side)) {
+                    moves.add(new int[]{r, c});
+                }
+            }
+        }
+        return moves;
+    }
+
+    private static Piece opponent(Piece side) {
+        return side == Piece.BLACK ? Piece.WHITE : Piece.BLACK;
+    }
+}
@@ -0,0 +1,107 @@
+package lab5;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 批量评估的标量实现与Vector API实现对比，结果是每个局面的平均耗时。
+ * 局面是按固定种子随机下到各个阶段的黑白棋和五子棋对局；模式评估用随机权重，
+ * 只影响查表的数值，不影响耗时。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class BatchEvaluatorBenchmark {
+    private static final int BATCH = 4096;
+    private static final long SEED = 20240501L;
+
+    @Param({"scalar", "vector"})
+    public String implementation;
+
+    private BatchEvaluator evaluator;
+    private PatternEvaluator patterns;
+    private final long[] reversiMine = new long[BATCH];
+    private final long[] reversiOpponent = new long[BATCH];
+    private final long[] gomokuMine = new long[BATCH];
+    private final long[] gomokuOpponent = new long[BATCH];
+    private final int[] out = new int[BATCH];
+
+    @Setup
+    public void setUp() {
+        evaluator = implementation.equals("vector") ? new VectorBatchEvaluator() : new BatchEvaluator();
+        SplittableRandom random = new SplittableRandom(SEED);
+        short[] weights = new short[PatternEvaluator.STAGES * PatternEvaluator.STAGE_WEIGHTS];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (short) random.nextInt(-500, 500);
+        }
+        patterns = new PatternEvaluator(weights);
+        for (int i = 0; i < BATCH; i++) {
+            BatchEvaluator.pack(randomPosition(new ReversiGame(1), 60, random), reversiMine, reversiOpponent, i);
+            BatchEvaluator.pack(randomPosition(new GomokuGame(1), 40, random), gomokuMine, gomokuOpponent, i);
+        }
+    }
+
+    // 随机走0~maxPlies步，对局结束前停下
+    private static Game randomPosition(Game game, int maxPlies, SplittableRandom random) {
+        int plies = random.nextInt(maxPlies);
+        for (int i = 0; i < plies; i++) {
+            List<int[]> moves = game.getValidMoves();
+            if (moves.isEmpty()) {
+                break;
+            }
+            int[] move = moves.get(random.nextInt(moves.size()));
+            Game next = game.copy();
+            next.placePiece(move[0], move[1]);
+            if (next.isOver()) {
+                break;
+            }
+            game = next;
+        }
+        return game;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] discDifference() {
+        evaluator.discDifference(reversiMine, reversiOpponent, out, BATCH);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] mobility() {
+        evaluator.mobility(reversiMine, reversiOpponent, out, BATCH);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] patternScore() {
+        evaluator.patternScore(patterns, reversiMine, reversiOpponent, out, BATCH);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] gomokuScore() {
+        evaluator.gomokuScore(gomokuMine, gomokuOpponent, out, BATCH);
+        return out;
+    }
+}
@@ -0,0 +1,59 @@
+package lab5;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 棋盘的全盘扫描：计子和判满。未满的棋盘上isFull遇到第一个空位就返回，
+ * 所以另外测量一个已满棋盘上的最坏情况。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    @Param({Positions.OPENING, Positions.MIDGAME, Positions.ENDGAME})
+    public String phase;
+
+    private Board board;
+    private Board fullBoard;
+
+    @Setup
+    public void setUp() {
+        board = Positions.reversi(phase).getBoard();
+        fullBoard = new Board();
+        for (int row = 0; row < Board.SIZE; row++) {
+            for (int col = 0; col < Board.SIZE; col++) {
+                fullBoard.setPiece(row, col, (row + col) % 2 == 0 ? Piece.BLACK : Piece.WHITE);
+            }
+        }
+    }
+
+    @Benchmark
+    public int countPieces() {
+        return board.countPieces(Piece.BLACK);
+    }
+
+    @Benchmark
+    public boolean isFull() {
+        return board.isFull();
+    }
+
+    @Benchmark
+    public boolean isFullOnFullBoard() {
+        return fullBoard.isFull();
+    }
+}
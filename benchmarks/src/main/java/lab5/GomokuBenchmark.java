@@ -0,0 +1,61 @@
+package lab5;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 五子棋的连五判断。checkWin以当前玩家的棋子为准，这里对当前玩家的每个棋子各判断一次。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GomokuBenchmark {
+    @Param({Positions.OPENING, Positions.MIDGAME, Positions.ENDGAME})
+    public String phase;
+
+    private GomokuGame position;
+    private int[] stones;
+
+    @Setup
+    public void setUp() {
+        position = Positions.gomoku(phase);
+        Piece piece = position.getCurrentPlayer().getPiece();
+        Board board = position.getBoard();
+        int count = board.countPieces(piece);
+        stones = new int[count * 2];
+        int i = 0;
+        for (int row = 0; row < Board.SIZE; row++) {
+            for (int col = 0; col < Board.SIZE; col++) {
+                if (board.getPiece(row, col) == piece) {
+                    stones[i++] = row;
+                    stones[i++] = col;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int checkWin() {
+        int wins = 0;
+        for (int i = 0; i < stones.length; i += 2) {
+            if (position.checkWin(stones[i], stones[i + 1])) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+}
@@ -0,0 +1,48 @@
+package lab5;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 从代表性局面随机下到终局，覆盖落子、合法位置计算和结束判断的整体开销。
+ * 随机数的种子固定，各次运行走的是同一串对局。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+    @Param({"reversi", "gomoku"})
+    public String game;
+
+    @Param({Positions.OPENING, Positions.MIDGAME, Positions.ENDGAME})
+    public String phase;
+
+    private Game position;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        position = Positions.of(game, phase);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public int playout() {
+        return Positions.playout(position.copy(), random);
+    }
+}
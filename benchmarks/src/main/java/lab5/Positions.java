@@ -0,0 +1,92 @@
+package lab5;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试用的代表性局面：从初始局面按固定种子随机走到指定手数，保证每次运行的局面相同。
+ */
+final class Positions {
+    static final String OPENING = "opening";
+    static final String MIDGAME = "midgame";
+    static final String ENDGAME = "endgame";
+
+    private static final long SEED = 20240501L;
+
+    private Positions() {
+    }
+
+    // 黑白棋：开局4手、中局24手、残局48手（盘面上约52子）
+    static ReversiGame reversi(String phase) {
+        int plies = pick(phase, 4, 24, 48);
+        SplittableRandom random = new SplittableRandom(SEED);
+        while (true) {
+            ReversiGame game = new ReversiGame(1);
+            if (playRandomMoves(game, plies, random)) {
+                return game;
+            }
+        }
+    }
+
+    // 五子棋：开局6子、中局20子、残局40子，且都还没有分出胜负
+    static GomokuGame gomoku(String phase) {
+        int plies = pick(phase, 6, 20, 40);
+        SplittableRandom random = new SplittableRandom(SEED);
+        while (true) {
+            GomokuGame game = new GomokuGame(1);
+            if (playRandomMoves(game, plies, random)) {
+                return game;
+            }
+        }
+    }
+
+    static Game of(String type, String phase) {
+        return "gomoku".equals(type) ? gomoku(phase) : reversi(phase);
+    }
+
+    /**
+     * 从当前局面随机落子直到对局结束，返回走的手数。黑白棋无处落子时只能pass。
+     */
+    static int playout(Game game, SplittableRandom random) {
+        int plies = 0;
+        while (!game.isOver()) {
+            List<int[]> moves = game.getValidMoves();
+            if (moves.isEmpty()) {
+                if (!(game instanceof ReversiGame) || !((ReversiGame) game).pass()) {
+                    break;
+                }
+            } else {
+                int[] move = moves.get(random.nextInt(moves.size()));
+                game.placePiece(move[0], move[1]);
+            }
+            plies++;
+        }
+        return plies;
+    }
+
+    // 走plies手，中途对局结束则返回false
+    private static boolean playRandomMoves(Game game, int plies, SplittableRandom random) {
+        for (int i = 0; i < plies; i++) {
+            List<int[]> moves = game.getValidMoves();
+            if (game.isOver() || moves.isEmpty()) {
+                return false;
+            }
+            int[] move = moves.get(random.nextInt(moves.size()));
+            game.placePiece(move[0], move[1]);
+        }
+        return !game.isOver();
+    }
+
+    private static int pick(String phase, int opening, int midgame, int endgame) {
+        switch (phase) {
+            case OPENING:
+                return opening;
+            case MIDGAME:
+                return midgame;
+            case ENDGAME:
+                return endgame;
+            default:
+                throw new IllegalArgumentException("未知的局面阶段: " + phase);
+        }
+    }
+}
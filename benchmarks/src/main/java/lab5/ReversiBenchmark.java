@@ -0,0 +1,73 @@
+package lab5;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 黑白棋规则的热点：合法性判断、合法位置计算和落子。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReversiBenchmark {
+    @Param({Positions.OPENING, Positions.MIDGAME, Positions.ENDGAME})
+    public String phase;
+
+    private ReversiGame position;
+    private Piece piece;
+    private int[] move;
+
+    @Setup
+    public void setUp() {
+        position = Positions.reversi(phase);
+        piece = position.getCurrentPlayer().getPiece();
+        move = position.getValidMoves().get(0);
+    }
+
+    // 对64个格子逐一调用isValidMove，返回合法位置数
+    @Benchmark
+    public int isValidMove() {
+        int count = 0;
+        for (int row = 0; row < Board.SIZE; row++) {
+            for (int col = 0; col < Board.SIZE; col++) {
+                if (position.isValidMove(row, col, piece)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<int[]> getValidMoves() {
+        return position.getValidMoves();
+    }
+
+    // placePiece会修改局面，所以在副本上落子；copy单独测量，比较时扣除
+    @Benchmark
+    public ReversiGame copy() {
+        return position.copy();
+    }
+
+    @Benchmark
+    public ReversiGame placePiece() {
+        ReversiGame game = position.copy();
+        game.placePiece(move[0], move[1]);
+        return game;
+    }
+}
@@ -1,16 +1,24 @@
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Scanner;
 import java.util.List;
 import java.util.ArrayList;
 
 public class Board {
+    private static final boolean ANSI_SUPPORTED = ansiSupported(); // 终端能否处理ANSI转义序列
     protected final int SIZE = 8; // 棋盘的大小
     protected final Piece[][] grid; // 棋盘的二维数组
     protected Game game; // 游戏引用
+    private static final BoardListener[] NO_LISTENERS = new BoardListener[0];
+    // 监听者数组，增删时整体替换，分发时只读取一次引用
+    private volatile BoardListener[] listeners = NO_LISTENERS;
+    protected final BoardView view; // 显示用的状态，随棋盘事件增量更新
 
     public Board() {
         grid = new Piece[SIZE][SIZE]; // 初始化棋盘数组
         initializeBoard(); // 初始化棋盘
+        view = new BoardView(this);
+        addListener(view);
     }
 
     // 设置游戏引用
@@ -37,11 +45,68 @@ public class Board {
     public boolean placePiece(int row, int col, Piece piece) {
         if (isValidPosition(row, col) && grid[row][col] == Piece.EMPTY) {
             grid[row][col] = piece; // 放置棋子
+            firePiecePlaced(row, col, piece);
             return true;
         }
         return false; // 位置无效或已有棋子
     }
 
+    public synchronized void addListener(BoardListener listener) {
+        BoardListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+        grown[grown.length - 1] = listener;
+        listeners = grown;
+    }
+
+    public synchronized void removeListener(BoardListener listener) {
+        BoardListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                BoardListener[] shrunk = new BoardListener[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                listeners = shrunk;
+                return;
+            }
+        }
+    }
+
+    // 以下由棋盘的规则在修改棋盘时调用，回合切换、pass和结束由Game调用
+
+    protected void firePiecePlaced(int row, int col, Piece piece) {
+        BoardListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPiecePlaced(this, row, col, piece);
+        }
+    }
+
+    protected void firePieceFlipped(int row, int col, Piece piece) {
+        BoardListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPieceFlipped(this, row, col, piece);
+        }
+    }
+
+    void firePlayerSwitched(Piece piece) {
+        BoardListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPlayerSwitched(this, piece);
+        }
+    }
+
+    void firePass(Piece piece) {
+        BoardListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPass(this, piece);
+        }
+    }
+
+    void fireGameOver() {
+        BoardListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onGameOver(this);
+        }
+    }
+
     // 检查位置是否有效
     protected boolean isValidPosition(int row, int col) {
         return row >= 0 && row < SIZE && col >= 0 && col < SIZE; // 检查行列是否在范围内
@@ -57,6 +122,17 @@ public class Board {
         return true; // 没有空格子则返回 true
     }
 
+    // 统计某种棋子的数量
+    public int countPieces(Piece piece) {
+        int count = 0;
+        for (Piece[] row : grid) {
+            for (Piece cell : row) {
+                if (cell == piece) count++;
+            }
+        }
+        return count;
+    }
+
     // 检查棋盘是否已满并显示游戏结束信息
     public void checkGameEnd(Player player1, Player player2) {
         if (isFull()) {
@@ -98,9 +174,7 @@ public class Board {
         
         for (int row = 0; row < SIZE; row++) {
             System.out.print((row + 1) + " "); // 显示行标
-            for (int col = 0; col < SIZE; col++) {
-                System.out.print(grid[row][col].getSymbol() + " "); // 显示棋子
-            }
+            System.out.print(view.row(row)); // 显示棋子，只有变化过的行才重新拼接
             
             // 在左侧显示玩家信息和当前游戏
             if (row == 0) {
@@ -154,12 +228,28 @@ public class Board {
         return gamesList;
     }
 
-    // 清屏方法，仅在 Windows 下有效
+    // 清屏方法：终端支持时使用ANSI转义序列（光标归位并清屏），不再为每一帧启动cls进程；
+    // 不支持转义序列的传统Windows控制台仍然用cls
     protected void clearScreen() {
+        if (ANSI_SUPPORTED) {
+            System.out.print("\033[H\033[2J");
+            System.out.flush();
+            return;
+        }
         try {
             new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
         } catch (InterruptedException | IOException e) {
             e.printStackTrace();
         }
     }
+
+    // 非Windows的终端都支持ANSI转义序列；Windows上只有Windows Terminal、ConEmu、ANSICON
+    // 和带TERM的终端（如Git Bash）支持，传统控制台会把转义序列原样打印出来
+    private static boolean ansiSupported() {
+        if (!System.getProperty("os.name").toLowerCase().contains("windows")) {
+            return true;
+        }
+        return System.getenv("WT_SESSION") != null || "ON".equalsIgnoreCase(System.getenv("ConEmuANSI"))
+                || System.getenv("ANSICON") != null || System.getenv("TERM") != null;
+    }
 }
\ No newline at end of file
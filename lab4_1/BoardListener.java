@@ -0,0 +1,27 @@
+/**
+ * 棋盘事件的监听者，通过Board.addListener注册。显示等可以根据事件增量维护自己的状态，
+ * 而不必每次重新扫描棋盘。
+ *
+ * 每种事件是一个方法，参数都是基本类型或已有的对象，分发时不创建任何事件对象；
+ * 方法都有空的默认实现，只需覆盖关心的事件。回调在修改棋盘时同步执行，不能在回调中修改棋盘。
+ */
+public interface BoardListener {
+    // 在空格(row, col)放下piece
+    default void onPiecePlaced(Board board, int row, int col, Piece piece) {
+    }
+
+    // (row, col)的棋子被翻转为piece（只有反转棋会翻转），每个被翻转的格子一次
+    default void onPieceFlipped(Board board, int row, int col, Piece piece) {
+    }
+
+    // 轮到执current的一方落子
+    default void onPlayerSwitched(Board board, Piece current) {
+    }
+
+    // piece一方pass（只有反转棋可以pass）
+    default void onPass(Board board, Piece piece) {
+    }
+
+    default void onGameOver(Board board) {
+    }
+}
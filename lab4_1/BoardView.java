@@ -0,0 +1,70 @@
+/**
+ * 棋盘显示用的状态，作为监听者挂在棋盘上，随落子和翻转增量更新：
+ * 每行棋子的文字只在该行有变化后才重新拼接，display直接打印缓存的行，不再逐格读取棋盘。
+ *
+ * version在棋盘每次变化后加一，依赖棋盘内容的派生状态（例如反转棋的落子提示）
+ * 可以记下计算时的version，没有变化就直接复用。
+ */
+public class BoardView implements BoardListener {
+    private final Board board;
+    private final String[] rows;
+    private final boolean[] dirty;
+    private int version;
+    private boolean over;
+
+    public BoardView(Board board) {
+        this.board = board;
+        this.rows = new String[board.SIZE];
+        this.dirty = new boolean[board.SIZE];
+        reset();
+    }
+
+    /**
+     * 按棋盘重新生成全部状态。只在直接修改了grid之后需要调用，正常落子时是增量更新的。
+     */
+    public void reset() {
+        for (int row = 0; row < rows.length; row++) {
+            dirty[row] = true;
+        }
+        version++;
+    }
+
+    @Override
+    public void onPiecePlaced(Board board, int row, int col, Piece piece) {
+        dirty[row] = true;
+        version++;
+    }
+
+    @Override
+    public void onPieceFlipped(Board board, int row, int col, Piece piece) {
+        dirty[row] = true;
+        version++;
+    }
+
+    @Override
+    public void onGameOver(Board board) {
+        over = true;
+    }
+
+    // 第row行的棋子，每个棋子后跟一个空格
+    public String row(int row) {
+        if (dirty[row]) {
+            StringBuilder text = new StringBuilder(board.SIZE * 2);
+            for (int col = 0; col < board.SIZE; col++) {
+                text.append(board.grid[row][col].getSymbol()).append(' ');
+            }
+            rows[row] = text.toString();
+            dirty[row] = false;
+        }
+        return rows[row];
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    // 是否收到过游戏结束事件
+    public boolean isOver() {
+        return over;
+    }
+}
@@ -1,14 +1,33 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
 
 public class Game {
+    // 棋盘的种类
+    private static final byte PEACE = 0;
+    private static final byte REVERSI = 1;
+    private static final byte GOMOKU = 2;
+
+    // 棋盘的结果，棋盘落子后才重新计算
+    public static final byte RESULT_NONE = 0; // 尚未结束
+    public static final byte RESULT_BLACK_WIN = 1;
+    public static final byte RESULT_WHITE_WIN = 2;
+    public static final byte RESULT_DRAW = 3;
+
     // 使用动态列表存储所有棋盘
     private final List<Board> boards;
-    // 每个棋盘的独立回合管理列表，0表示由player1落子，1表示由player2落子
-    private final List<Integer> boardTurns;
-    // 游戏类型列表
-    private final List<String> gameTypes;
+    // 游戏列表（编号和类型），添加棋盘时追加，显示时不再重新构建
+    private final List<String[]> gameTypeList;
+    // 每个棋盘的状态，下标与boards相同，容量不够时成倍扩大：
+    // 种类、回合（0表示由player1落子，1表示由player2落子）、是否结束、结果
+    private byte[] boardKinds = new byte[4];
+    private byte[] boardTurns = new byte[4];
+    private boolean[] boardOver = new boolean[4];
+    private byte[] boardResults = new byte[4];
+    // 尚未结束的棋盘数
+    private int liveBoards = 0;
     // 当前使用的棋盘索引，初始为0
     private int currentBoardIndex = 0;
 
@@ -18,44 +37,92 @@ public class Game {
 
     public Game(Player player1, Player player2) {
         boards = new ArrayList<>();
-        boardTurns = new ArrayList<>();
-        gameTypes = new ArrayList<>();
+        gameTypeList = new ArrayList<>();
+        this.player1 = player1;
+        this.player2 = player2;
+        this.scanner = new Scanner(System.in);
+
         // 初始化三个棋盘：
         // 默认和平游戏（普通棋盘），输入 "peace" 时代表此类型游戏
-        boards.add(new Board());
-        boardTurns.add(0);
-        gameTypes.add("peace");
+        addBoard(new Board(), "peace", PEACE);
         // 反转棋盘，输入 "reversi" 时代表此类型游戏
-        boards.add(new ReverseBoard());
-        boardTurns.add(0);
-        gameTypes.add("reversi");
+        addBoard(new ReverseBoard(), "reversi", REVERSI);
         // 五子棋棋盘，输入 "gomoku" 时代表此类型游戏
-        boards.add(new GomokuBoard());
-        boardTurns.add(0);
-        gameTypes.add("gomoku");
-        
-        this.player1 = player1;
-        this.player2 = player2;
-        this.scanner = new Scanner(System.in);
-        
-        // 设置每个棋盘的游戏列表引用
-        updateBoardsGameList();
+        addBoard(new GomokuBoard(), "gomoku", GOMOKU);
     }
-    
-    // 更新所有棋盘的游戏列表信息
-    private void updateBoardsGameList() {
-        for (Board board : boards) {
-            board.setGameList(this);
+
+    // 添加棋盘并初始化它的状态，返回游戏编号
+    private int addBoard(Board board, String type, byte kind) {
+        int index = boards.size();
+        if (index == boardKinds.length) {
+            int capacity = index * 2;
+            boardKinds = Arrays.copyOf(boardKinds, capacity);
+            boardTurns = Arrays.copyOf(boardTurns, capacity);
+            boardOver = Arrays.copyOf(boardOver, capacity);
+            boardResults = Arrays.copyOf(boardResults, capacity);
+        }
+        boards.add(board);
+        gameTypeList.add(new String[]{String.valueOf(index + 1), type});
+        // 设置棋盘的游戏列表引用
+        board.setGameList(this);
+        boardKinds[index] = kind;
+        boardTurns[index] = 0;
+        boardOver[index] = false;
+        boardResults[index] = RESULT_NONE;
+        liveBoards++;
+        updateBoardStatus(index);
+        return index + 1;
+    }
+
+    /**
+     * 重新计算一个棋盘是否结束及其结果，并维护尚未结束的棋盘数。
+     * 棋盘的状态只在落子后才会变化，所以只在这时调用，主循环只读取缓存的状态。
+     */
+    private void updateBoardStatus(int index) {
+        Board board = boards.get(index);
+        boolean over;
+        byte result = RESULT_NONE;
+        if (boardKinds[index] == REVERSI) {
+            over = ((ReverseBoard) board).isGameOver();
+            if (over) {
+                int black = board.countPieces(Piece.BLACK);
+                int white = board.countPieces(Piece.WHITE);
+                result = black > white ? RESULT_BLACK_WIN : white > black ? RESULT_WHITE_WIN : RESULT_DRAW;
+            }
+        } else if (boardKinds[index] == GOMOKU) {
+            GomokuBoard gomoku = (GomokuBoard) board;
+            over = gomoku.isGameOver();
+            if (over) {
+                Piece winner = gomoku.getWinner();
+                result = winner == Piece.BLACK ? RESULT_BLACK_WIN : winner == Piece.WHITE ? RESULT_WHITE_WIN : RESULT_DRAW;
+            }
+        } else {
+            // 对于普通棋盘，棋盘已满即结束，不分胜负
+            over = board.isFull();
+            if (over) {
+                result = RESULT_DRAW;
+            }
         }
+        if (over != boardOver[index]) {
+            liveBoards += over ? -1 : 1;
+            boardOver[index] = over;
+            if (over) {
+                board.fireGameOver();
+            }
+        }
+        boardResults[index] = result;
     }
-    
+
+    // 轮到棋盘上的另一方落子，并通知棋盘的监听者
+    private void switchTurn(int index) {
+        boardTurns[index] ^= 1;
+        Player next = boardTurns[index] == 0 ? player1 : player2;
+        boards.get(index).firePlayerSwitched(next.getPieceType());
+    }
+
     // 获取游戏类型列表
     public List<String[]> getGameTypeList() {
-        List<String[]> result = new ArrayList<>();
-        for (int i = 0; i < boards.size(); i++) {
-            result.add(new String[]{String.valueOf(i + 1), gameTypes.get(i)});
-        }
-        return result;
+        return Collections.unmodifiableList(gameTypeList);
     }
 
     public void start() {
@@ -66,11 +133,11 @@ public class Game {
         while (running) {
             Board currentBoard = boards.get(currentBoardIndex);
             // 根据当前棋盘的回合值确定当前玩家
-            Player currentPlayer = (boardTurns.get(currentBoardIndex) == 0) ? player1 : player2;
+            Player currentPlayer = (boardTurns[currentBoardIndex] == 0) ? player1 : player2;
             currentBoard.display(player1, player2, currentPlayer, currentBoardIndex + 1);
             
             // 检查所有棋盘是否已满或游戏结束，且未显示提示
-            boolean allEnded = allBoardsFull() || allBoardsGameOver();
+            boolean allEnded = liveBoards == 0;
             if (allEnded && !allGameEndedNotified) {
                 System.out.println("所有游戏都已结束！您可以添加新游戏继续，或输入quit退出。");
                 allGameEndedNotified = true;
@@ -80,12 +147,7 @@ public class Game {
             }
             
             // 检查当前棋盘是否为反转棋或五子棋游戏结束状态
-            boolean isGameOver = false;
-            if (currentBoard instanceof ReverseBoard) {
-                isGameOver = ((ReverseBoard) currentBoard).isGameOver();
-            } else if (currentBoard instanceof GomokuBoard) {
-                isGameOver = ((GomokuBoard) currentBoard).isGameOver();
-            }
+            boolean isGameOver = boardKinds[currentBoardIndex] != PEACE && boardOver[currentBoardIndex];
             
             if (isGameOver) {
                 // 等待用户确认后继续
@@ -94,20 +156,9 @@ public class Game {
                 
                 // 如果还有其他未结束的游戏，切换到下一个可用棋盘
                 boolean foundValidBoard = false;
-                for (int i = 0; i < boards.size(); i++) {
+                for (int i = 0; liveBoards > 0 && i < boards.size(); i++) {
                     int nextBoardIndex = (currentBoardIndex + i + 1) % boards.size();
-                    Board nextBoard = boards.get(nextBoardIndex);
-                    boolean nextIsOver = false;
-                    
-                    if (nextBoard instanceof ReverseBoard) {
-                        nextIsOver = ((ReverseBoard) nextBoard).isGameOver();
-                    } else if (nextBoard instanceof GomokuBoard) {
-                        nextIsOver = ((GomokuBoard) nextBoard).isGameOver();
-                    } else {
-                        nextIsOver = nextBoard.isFull();
-                    }
-                    
-                    if (!nextIsOver) {
+                    if (!boardOver[nextBoardIndex]) {
                         currentBoardIndex = nextBoardIndex;
                         foundValidBoard = true;
                         break;
@@ -122,7 +173,7 @@ public class Game {
             
             System.out.print("请玩家[" + currentPlayer.getName() + "]输入落子位置、棋盘编号，或添加新游戏(peace/reversi/gomoku)，或输入 quit 退出");
             // 如果当前是反转棋并且当前玩家没有合法落子位置，显示pass提示
-            if (currentBoard instanceof ReverseBoard && !((ReverseBoard) currentBoard).hasValidMove(currentPlayer.getPieceType())) {
+            if (boardKinds[currentBoardIndex] == REVERSI && !((ReverseBoard) currentBoard).hasValidMove(currentPlayer.getPieceType())) {
                 System.out.print("，或输入 pass 跳过本轮");
             }
             System.out.print("：");
@@ -138,10 +189,11 @@ public class Game {
             
             // 处理 pass 命令（仅在反转棋游戏中有效）
             if (input.equalsIgnoreCase("pass")) {
-                if (currentBoard instanceof ReverseBoard && ((ReverseBoard) currentBoard).canPass(currentPlayer.getPieceType())) {
+                if (boardKinds[currentBoardIndex] == REVERSI && ((ReverseBoard) currentBoard).canPass(currentPlayer.getPieceType())) {
                     System.out.println(currentPlayer.getName() + " 跳过本轮。");
+                    currentBoard.firePass(currentPlayer.getPieceType());
                     // 更新当前棋盘的回合
-                    boardTurns.set(currentBoardIndex, (boardTurns.get(currentBoardIndex) + 1) % 2);
+                    switchTurn(currentBoardIndex);
                     scanner.nextLine();
                     continue;
                 } else {
@@ -154,31 +206,22 @@ public class Game {
             // 新增：判断是否添加新游戏
             if (input.equalsIgnoreCase("peace")) {
                 // 添加和平游戏：普通棋盘
-                boards.add(new Board());
-                boardTurns.add(0);
-                gameTypes.add("peace");
-                System.out.println("成功添加新游戏peace，游戏编号为：" + boards.size());
-                updateBoardsGameList();
+                int number = addBoard(new Board(), "peace", PEACE);
+                System.out.println("成功添加新游戏peace，游戏编号为：" + number);
                 allGameEndedNotified = false; // 新游戏添加后重置状态
                 scanner.nextLine();
                 continue;
             } else if (input.equalsIgnoreCase("reversi")) {
                 // 添加反转棋盘
-                boards.add(new ReverseBoard());
-                boardTurns.add(0);
-                gameTypes.add("reversi");
-                System.out.println("成功添加新游戏reversi，游戏编号为：" + boards.size());
-                updateBoardsGameList();
+                int number = addBoard(new ReverseBoard(), "reversi", REVERSI);
+                System.out.println("成功添加新游戏reversi，游戏编号为：" + number);
                 allGameEndedNotified = false; // 新游戏添加后重置状态
                 scanner.nextLine();
                 continue;
             } else if (input.equalsIgnoreCase("gomoku")) {
                 // 添加五子棋棋盘
-                boards.add(new GomokuBoard());
-                boardTurns.add(0);
-                gameTypes.add("gomoku");
-                System.out.println("成功添加新游戏gomoku，游戏编号为：" + boards.size());
-                updateBoardsGameList();
+                int number = addBoard(new GomokuBoard(), "gomoku", GOMOKU);
+                System.out.println("成功添加新游戏gomoku，游戏编号为：" + number);
                 allGameEndedNotified = false; // 新游戏添加后重置状态
                 scanner.nextLine();
                 continue;
@@ -220,11 +263,14 @@ public class Game {
                     continue;
                 }
                 
+                // 棋盘变化了，重新计算它的状态
+                updateBoardStatus(currentBoardIndex);
+                
                 // 检查棋盘是否已满并显示游戏结束信息
                 currentBoard.checkGameEnd(player1, player2);
                 
                 // 更新当前棋盘的回合
-                boardTurns.set(currentBoardIndex, (boardTurns.get(currentBoardIndex) + 1) % 2);
+                switchTurn(currentBoardIndex);
             } else {
                 System.out.println("输入格式错误，请输入棋盘编号（1~" + boards.size() + "）、落子位置（例如：1a），或新游戏命令（peace/reversi/gomoku）！");
                 scanner.nextLine();
@@ -234,42 +280,14 @@ public class Game {
         // 游戏结束消息移至quit命令处理
     }
 
-    // 判断所有棋盘是否均已满
-    private boolean allBoardsFull() {
-        for (Board board : boards) {
-            if (!board.isFull()) {
-                return false;
-            }
-        }
-        return true;
+    // 尚未结束的棋盘数
+    public int getLiveBoardCount() {
+        return liveBoards;
     }
 
-    /**
-     * 判断所有棋盘游戏是否都已结束
-     * 包括：棋盘已满，或者反转棋双方均无合法落子位置，或者五子棋有玩家获胜
-     *
-     * @return 如果所有棋盘游戏都已结束返回 true，否则返回 false
-     */
-    private boolean allBoardsGameOver() {
-        for (Board board : boards) {
-            if (board instanceof ReverseBoard) {
-                // 对于反转棋，判断是否游戏已结束
-                if (!((ReverseBoard) board).isGameOver()) {
-                    return false;
-                }
-            } else if (board instanceof GomokuBoard) {
-                // 对于五子棋，判断是否游戏已结束
-                if (!((GomokuBoard) board).isGameOver()) {
-                    return false;
-                }
-            } else {
-                // 对于普通棋盘，判断是否已满
-                if (!board.isFull()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    // 第index个棋盘的结果（RESULT_*）
+    public byte getBoardResult(int index) {
+        return boardResults[index];
     }
 
     // 获取玩家1
@@ -29,6 +29,7 @@ public class GomokuBoard extends Board {
         
         if (isValidPosition(row, col) && grid[row][col] == Piece.EMPTY) {
             grid[row][col] = piece; // 放置棋子
+            firePiecePlaced(row, col, piece);
             checkWin(row, col, piece); // 检查是否有玩家获胜
             return true;
         }
@@ -99,6 +100,11 @@ public class GomokuBoard extends Board {
         return gameEnded || isFull();
     }
 
+    // 获胜方的棋子，尚无人获胜时为EMPTY
+    public Piece getWinner() {
+        return winner;
+    }
+
     /**
      * 获取游戏结果，包括获胜者信息
      * 
@@ -145,9 +151,7 @@ public class GomokuBoard extends Board {
         
         for (int row = 0; row < SIZE; row++) {
             System.out.print((row + 1) + " "); // 显示行标
-            for (int col = 0; col < SIZE; col++) {
-                System.out.print(grid[row][col].getSymbol() + " "); // 显示棋子
-            }
+            System.out.print(view.row(row)); // 显示棋子，只有变化过的行才重新拼接
             
             // 在左侧显示玩家信息和当前游戏
             if (row == 0) {
@@ -165,7 +169,7 @@ public class GomokuBoard extends Board {
                 if (currentPlayer == player2) {
                     System.out.print(" " + player2.getPieceType().getSymbol());
                 }
-            } else if (row == 3 && isGameOver()) {
+            } else if (row == 3 && view.isOver()) {
                 System.out.print("  " + getGameResult());
             }
             
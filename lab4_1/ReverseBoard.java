@@ -4,10 +4,32 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ReverseBoard extends Board {
-    // 游戏列表
+    // 调试模式（-Dgame.debug=true）下每步都用全盘统计核对增量维护的棋子数
+    private static final boolean DEBUG = Boolean.getBoolean("game.debug");
+
+    // 黑白双方的棋子数，随落子和翻转增量更新，不再每步扫描棋盘
+    private int blackCount;
+    private int whiteCount;
+
+    // 显示用的落子提示，第row*SIZE+col位表示该格是hintPiece的合法落子；
+    // 只在棋盘变化（view的version改变）或轮到另一方后才重新计算
+    private long hintMask;
+    private Piece hintPiece;
+    private int hintVersion;
 
     public ReverseBoard() {
         super();
+        recount();
+    }
+
+    /**
+     * 按棋盘重新统计双方的棋子数。只在直接修改了grid之后需要调用（例如基准测试恢复局面），
+     * 正常落子时棋子数是增量维护的。
+     */
+    void recount() {
+        blackCount = super.countPieces(Piece.BLACK);
+        whiteCount = super.countPieces(Piece.WHITE);
+        view.reset();
     }
     
     /**
@@ -60,40 +82,63 @@ public class ReverseBoard extends Board {
                 currentCol -= dCol;
                 while (currentRow != row || currentCol != col) {
                     grid[currentRow][currentCol] = piece;
+                    firePieceFlipped(currentRow, currentCol, piece);
                     currentRow -= dRow;
                     currentCol -= dCol;
                 }
             }
         }
         
-        // 改为直接统计棋盘上该颜色棋子的数量作为得分
+        // 翻转的棋子从对手计入自己，得分就是棋盘上该颜色棋子的数量
         if (canFlip) {
+            addPieces(piece, flippedCount);
+            addPieces(opponentPiece, -flippedCount);
             updatePlayerScore(player);
         }
         
         return canFlip;
     }
     
+    private void addPieces(Piece piece, int delta) {
+        if (piece == Piece.BLACK) {
+            blackCount += delta;
+        } else {
+            whiteCount += delta;
+        }
+    }
+    
     /**
-     * 更新玩家得分 - 直接统计棋盘上该玩家颜色棋子的数量
+     * 更新玩家得分 - 使用增量维护的该玩家颜色棋子数量
      *
      * @param player 需要更新得分的玩家
      */
     private void updatePlayerScore(Player player) {
-        Piece piece = player.getPieceType();
-        int count = 0;
-        
-        // 遍历整个棋盘，统计玩家棋子数量
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (grid[row][col] == piece) {
-                    count++;
-                }
-            }
+        player.setScore(countPieces(player.getPieceType()));
+    }
+    
+    @Override
+    public int countPieces(Piece piece) {
+        if (piece == Piece.BLACK) {
+            return blackCount;
+        } else if (piece == Piece.WHITE) {
+            return whiteCount;
+        }
+        return SIZE * SIZE - blackCount - whiteCount;
+    }
+    
+    @Override
+    public boolean isFull() {
+        return blackCount + whiteCount == SIZE * SIZE;
+    }
+    
+    // 用全盘统计核对增量维护的棋子数，不一致说明有代码绕过了落子直接修改棋盘
+    private void checkCounts() {
+        int black = super.countPieces(Piece.BLACK);
+        int white = super.countPieces(Piece.WHITE);
+        if (black != blackCount || white != whiteCount) {
+            throw new IllegalStateException("棋子数不一致：增量 " + blackCount + ":" + whiteCount
+                    + "，实际 " + black + ":" + white);
         }
-        
-        // 设置玩家分数为棋盘上棋子数量
-        player.setScore(count);
     }
     
     /**
@@ -116,8 +161,13 @@ public class ReverseBoard extends Board {
         
         if (canPlaceAndFlip(row, col, piece, player)) {
             grid[row][col] = piece;
+            addPieces(piece, 1);
+            firePiecePlaced(row, col, piece);
+            if (DEBUG) {
+                checkCounts();
+            }
             
-            // 在成功落子后，更新双方玩家得分
+            // 在成功落子后，更新双方玩家得分：落子方增加翻转数加一，对手减少翻转数
             updatePlayerScore(game.getPlayer1());
             updatePlayerScore(game.getPlayer2());
             
@@ -192,10 +242,29 @@ public class ReverseBoard extends Board {
         return !hasValidMove(piece);
     }
     
+    // piece一方的落子提示，棋盘和落子方都没有变化时直接返回上次的结果
+    private long hints(Piece piece) {
+        if (hintPiece != piece || hintVersion != view.getVersion()) {
+            long mask = 0;
+            for (int row = 0; row < SIZE; row++) {
+                for (int col = 0; col < SIZE; col++) {
+                    if (grid[row][col] == Piece.EMPTY && isValidMove(row, col, piece)) {
+                        mask |= 1L << (row * SIZE + col);
+                    }
+                }
+            }
+            hintMask = mask;
+            hintPiece = piece;
+            hintVersion = view.getVersion();
+        }
+        return hintMask;
+    }
+
     /**
      * 显示当前棋盘状态。
      * 在打印棋盘时，先判断当前位置是否为空且为当前玩家的合法落子位置，
      * 如果是，则该位置打印 "+" 提示，否则打印原有棋子符号。
+     * 棋子行和落子提示都来自随棋盘事件增量维护的状态，没有提示的行直接打印缓存的文字。
      *
      * @param player1       玩家1
      * @param player2       玩家2
@@ -208,6 +277,7 @@ public class ReverseBoard extends Board {
         updatePlayerScore(player2);
         
         List<String[]> gamesList = getRunningGamesList();
+        long hints = hints(currentPlayer.getPieceType());
         clearScreen(); // 清屏
         System.out.println("当前棋盘编号：" + boardNumber); // 显示当前棋盘编号
         System.out.print("  ");
@@ -217,12 +287,17 @@ public class ReverseBoard extends Board {
         System.out.println();
         for (int row = 0; row < SIZE; row++) {
             System.out.print((row + 1) + " "); // 显示行标
-            for (int col = 0; col < SIZE; col++) {
-                // 如果当前位置为空且为当前玩家的合法落子位置，则打印 "+" 提示
-                if (grid[row][col] == Piece.EMPTY && isValidMove(row, col, currentPlayer.getPieceType())) {
-                    System.out.print("+ ");
-                } else {
-                    System.out.print(grid[row][col].getSymbol() + " ");
+            long rowHints = (hints >>> (row * SIZE)) & ((1L << SIZE) - 1);
+            if (rowHints == 0) {
+                System.out.print(view.row(row));
+            } else {
+                for (int col = 0; col < SIZE; col++) {
+                    // 如果当前位置为空且为当前玩家的合法落子位置，则打印 "+" 提示
+                    if ((rowHints & (1L << col)) != 0) {
+                        System.out.print("+ ");
+                    } else {
+                        System.out.print(grid[row][col].getSymbol() + " ");
+                    }
                 }
             }
             // 在前两行显示玩家姓名，并在轮到该玩家时显示其棋子标识
@@ -260,7 +335,7 @@ public class ReverseBoard extends Board {
         }
         
         // 当前玩家没有合法落子位置时，显示提示信息
-        if (!hasValidMove(currentPlayer.getPieceType())) {
+        if (hints == 0) {
             System.out.println("注意：" + currentPlayer.getName() + " 没有合法落子位置！请输入 'pass' 跳过本轮。");
         }
         
@@ -291,20 +366,6 @@ public class ReverseBoard extends Board {
      * @return 游戏结果字符串
      */
     public String getGameResult() {
-        int blackCount = 0;
-        int whiteCount = 0;
-        
-        // 统计黑白棋子数量
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (grid[row][col] == Piece.BLACK) {
-                    blackCount++;
-                } else if (grid[row][col] == Piece.WHITE) {
-                    whiteCount++;
-                }
-            }
-        }
-        
         // 确保玩家得分与棋盘上的棋子数量一致
         Player player1 = game.getPlayer1();
         Player player2 = game.getPlayer2();
@@ -0,0 +1,161 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 电脑对手。轮到电脑时在时间预算内搜索着法；轮到对方时在后台预想（ponder）：
+ * 先用很短的时间预测对方最可能的应着，然后对预测后的局面持续搜索。
+ *
+ * 对方实际走出预测的局面时（预想命中），后台搜索直接转为正式搜索，已经完成的迭代全部保留，
+ * 总思考时间从开始预想算起，因此往往可以更快地给出更深的结果；
+ * 预想落空时只需取消后台搜索，然后正常搜索。
+ * 预测、预想和正式搜索共用一张置换表，预想落空时已经搜索过的局面也能被正式搜索用上。
+ */
+public class AiOpponent {
+    private static final long PREDICT_MILLIS = 100; // 预测对方应着的时间
+    private static final long MAX_PONDER_MILLIS = 60_000; // 单次预想的最长时间，避免空闲时一直占用CPU
+
+    private final long budgetMillis;
+    private final ExecutorService executor;
+    private final TranspositionTable table; // 可以为null
+    private Ponder ponder; // 当前的后台预想
+    private int ponderHits = 0;
+    private int ponderMisses = 0;
+    private boolean lastMovePondered = false;
+
+    // 一次后台预想
+    private static class Ponder {
+        private final SearchEngine predictor;
+        private final SearchEngine engine;
+        private volatile Game predictedPosition; // 预测对方应着之后的局面，预测完成前为null
+        private volatile long startNanos;
+        private Future<SearchEngine.Result> future;
+
+        Ponder(TranspositionTable table) {
+            predictor = newEngine(table);
+            engine = newEngine(table);
+        }
+
+        void cancel() {
+            predictor.stop();
+            engine.stop();
+        }
+    }
+
+    /**
+     * @param budgetMillis 每步的思考时间
+     * @param executor     运行后台预想的线程池，可以由多个电脑对手共用
+     */
+    public AiOpponent(long budgetMillis, ExecutorService executor) {
+        this(budgetMillis, executor, null);
+    }
+
+    /**
+     * @param table 搜索使用的置换表，可以由多个电脑对手共用；为null时不使用置换表。
+     *              预测、预想和正式搜索会同时使用这张表，表的代由调用者推进（TranspositionTable.newSearch）
+     */
+    public AiOpponent(long budgetMillis, ExecutorService executor, TranspositionTable table) {
+        this.budgetMillis = budgetMillis;
+        this.executor = executor;
+        this.table = table;
+    }
+
+    private static SearchEngine newEngine(TranspositionTable table) {
+        SearchEngine engine = new SearchEngine();
+        engine.setTranspositionTable(table);
+        engine.setSharedTable(true);
+        return engine;
+    }
+
+    /**
+     * 轮到电脑时调用，返回要走的着法；对局已结束时返回null。
+     * 如果后台预想的局面与当前局面相同，复用预想的搜索结果。
+     */
+    public SearchEngine.Result chooseMove(Game game) {
+        Ponder current = ponder;
+        ponder = null;
+        lastMovePondered = false;
+        if (current != null) {
+            Game predicted = current.predictedPosition;
+            if (predicted != null && samePosition(predicted, game)) {
+                ponderHits++;
+                // 总思考时间从开始预想算起；预想已经超过预算时只再给一小段时间收尾
+                long now = System.nanoTime();
+                long budgetNanos = budgetMillis * 1_000_000L;
+                current.engine.setDeadline(Math.max(current.startNanos + budgetNanos, now + budgetNanos / 10));
+                try {
+                    SearchEngine.Result result = current.future.get();
+                    if (result != null) {
+                        lastMovePondered = true;
+                        return result;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // 后台搜索失败时退回到正常搜索
+                }
+            } else {
+                ponderMisses++;
+                current.cancel();
+            }
+        }
+        return newEngine(table).search(game.copy(), budgetMillis, null);
+    }
+
+    // 电脑走完之后、轮到对方时调用，开始后台预想
+    public void startPondering(Game game) {
+        stopPondering();
+        if (game.isOver()) {
+            return;
+        }
+        Piece aiPiece = SearchEngine.opponent(game.getCurrentPlayer().getPiece());
+        Game position = game.copy();
+        Ponder next = new Ponder(table);
+        next.future = executor.submit(() -> {
+            // 先预测对方最可能的应着（以对方的视角搜索）
+            SearchEngine.Result guess = next.predictor.search(position, PREDICT_MILLIS, null);
+            if (guess == null || next.engine.isCancelled()) {
+                return null;
+            }
+            Game predicted = position.copy();
+            if (guess.isPass()) {
+                ((ReversiGame) predicted).pass();
+            } else {
+                predicted.placePiece(guess.getRow(), guess.getCol());
+            }
+            if (predicted.isOver() || predicted.getCurrentPlayer().getPiece() != aiPiece) {
+                return null; // 预测的应着之后仍轮不到电脑，没有可预想的局面
+            }
+            next.startNanos = System.nanoTime();
+            next.predictedPosition = predicted;
+            return next.engine.search(predicted.copy(), MAX_PONDER_MILLIS, null);
+        });
+        ponder = next;
+    }
+
+    // 停止后台预想，例如用户离开这局游戏或关闭电脑对手时
+    public void stopPondering() {
+        if (ponder != null) {
+            ponder.cancel();
+            ponder = null;
+        }
+    }
+
+    public int getPonderHits() {
+        return ponderHits;
+    }
+
+    public int getPonderMisses() {
+        return ponderMisses;
+    }
+
+    // 最近一次chooseMove是否使用了预想的结果
+    public boolean isLastMovePondered() {
+        return lastMovePondered;
+    }
+
+    private static boolean samePosition(Game a, Game b) {
+        return a.getCurrentPlayer().getPiece() == b.getCurrentPlayer().getPiece()
+                && a.getBoard().sameCells(b.getBoard());
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * 批量评估：一次评估很多个互不相关的局面（MCTS的叶子、分析任务、比赛中的大量对局），
+ * 计算子数差、黑白棋的行动力、五子棋的五格窗口分和模式评估分。
+ *
+ * 局面打包成两个long数组：mine[i]和opponent[i]分别是第i个局面中行棋方和对方的棋子，
+ * 第row*8+col位表示(row, col)（和Board.toBitmask相同），结果都以行棋方的视角写入out[i]。
+ * 这样的结构数组布局让同一种运算依次作用在连续的局面上，便于向量化。
+ *
+ * 本类是标量实现，用位棋盘运算一次处理一个局面。create()在可以使用Vector API时
+ * （编译了vector目录下的VectorBatchEvaluator，并以 --add-modules jdk.incubator.vector 运行）
+ * 返回向量实现，每条向量指令同时处理多个局面，否则退回本类。
+ */
+public class BatchEvaluator {
+    static final long NOT_EDGE_COLUMNS = 0x7E7E7E7E7E7E7E7EL; // 去掉第0列和第7列
+
+    // 五子棋四个方向：位移量和五格窗口完整落在棋盘内的起点
+    static final int[] GOMOKU_SHIFTS = {1, 8, 9, 7};
+    static final long[] GOMOKU_STARTS = {
+        0x0F0F0F0F0F0F0F0FL, // 横：第0~3列
+        0x00000000FFFFFFFFL, // 竖：第0~3行
+        0x000000000F0F0F0FL, // 右下斜：第0~3行、第0~3列
+        0x00000000F0F0F0F0L  // 左下斜：第0~3行、第4~7列
+    };
+    // 五格窗口中有k个同色棋子（且没有对方棋子）时的分值，与SearchEngine的五子棋评估相同
+    static final int[] GOMOKU_WINDOW_SCORES = {0, 1, 8, 64, 512, 0};
+
+    private static final String VECTOR_CLASS = "VectorBatchEvaluator";
+
+    // 能用Vector API时返回向量实现，否则返回标量实现
+    public static BatchEvaluator create() {
+        String pkg = BatchEvaluator.class.getPackageName();
+        try {
+            Class<?> type = Class.forName(pkg.isEmpty() ? VECTOR_CLASS : pkg + "." + VECTOR_CLASS);
+            return (BatchEvaluator) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // 没有编译向量实现，或者运行时没有加入jdk.incubator.vector模块
+            return new BatchEvaluator();
+        }
+    }
+
+    public String getName() {
+        return "scalar";
+    }
+
+    // 把一个对局的当前局面写入第index个位置
+    public static void pack(Game game, long[] mine, long[] opponent, int index) {
+        Board board = game.getBoard();
+        Piece piece = game.getCurrentPlayer().getPiece();
+        mine[index] = board.toBitmask(piece);
+        opponent[index] = board.toBitmask(SearchEngine.opponent(piece));
+    }
+
+    // 子数差
+    public void discDifference(long[] mine, long[] opponent, int[] out, int count) {
+        discDifference(mine, opponent, out, 0, count);
+    }
+
+    // 黑白棋中行棋方的合法着法数
+    public void mobility(long[] mine, long[] opponent, int[] out, int count) {
+        mobility(mine, opponent, out, 0, count);
+    }
+
+    // 五子棋的五格窗口分：只含一方棋子的窗口按棋子数计分
+    public void gomokuScore(long[] mine, long[] opponent, int[] out, int count) {
+        gomokuScore(mine, opponent, out, 0, count);
+    }
+
+    // 黑白棋的模式评估分
+    public void patternScore(PatternEvaluator patterns, long[] mine, long[] opponent, int[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = patterns.evaluate(mine[i], opponent[i]);
+        }
+    }
+
+    // 以下处理[from, to)，向量实现用它们处理凑不满一个向量的剩余局面
+
+    void discDifference(long[] mine, long[] opponent, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = Long.bitCount(mine[i]) - Long.bitCount(opponent[i]);
+        }
+    }
+
+    void mobility(long[] mine, long[] opponent, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = Long.bitCount(moves(mine[i], opponent[i]));
+        }
+    }
+
+    void gomokuScore(long[] mine, long[] opponent, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int score = 0;
+            for (int d = 0; d < GOMOKU_SHIFTS.length; d++) {
+                score += windowScore(mine[i], opponent[i], GOMOKU_SHIFTS[d], GOMOKU_STARTS[d]);
+            }
+            out[i] = score;
+        }
+    }
+
+    // 行棋方可以落子的格子：沿8个方向找被夹住的对方棋子
+    static long moves(long mine, long opponent) {
+        long empty = ~(mine | opponent);
+        long inner = opponent & NOT_EDGE_COLUMNS;
+        long moves = 0;
+        moves |= direction(mine, inner, empty, 1);
+        moves |= direction(mine, opponent, empty, 8);
+        moves |= direction(mine, inner, empty, 7);
+        moves |= direction(mine, inner, empty, 9);
+        return moves;
+    }
+
+    // 一条方向线的正反两个方向；横向的方向只让不在边列上的对方棋子参与，避免跨行
+    private static long direction(long mine, long opponent, long empty, int shift) {
+        long forward = opponent & (mine << shift);
+        long backward = opponent & (mine >>> shift);
+        for (int k = 0; k < 5; k++) {
+            forward |= opponent & (forward << shift);
+            backward |= opponent & (backward >>> shift);
+        }
+        return (empty & (forward << shift)) | (empty & (backward >>> shift));
+    }
+
+    /**
+     * 一个方向上所有五格窗口的分值。把窗口中的5个格子移到起点上逐位相加，
+     * 得到每个起点处窗口内棋子数的三个二进制位（按位并行的加法器）。
+     */
+    private static int windowScore(long mine, long opponent, int shift, long starts) {
+        long m0 = 0, m1 = 0, m2 = 0;
+        long o0 = 0, o1 = 0, o2 = 0;
+        for (int k = 0; k < 5; k++) {
+            long m = mine >>> (k * shift);
+            long carry = m0 & m;
+            m0 ^= m;
+            m2 |= m1 & carry;
+            m1 ^= carry;
+            long o = opponent >>> (k * shift);
+            carry = o0 & o;
+            o0 ^= o;
+            o2 |= o1 & carry;
+            o1 ^= carry;
+        }
+        long mineOnly = starts & ~(o0 | o1 | o2);
+        long opponentOnly = starts & ~(m0 | m1 | m2);
+        return countScore(m0, m1, m2, mineOnly) - countScore(o0, o1, o2, opponentOnly);
+    }
+
+    // 窗口内棋子数为1~4的起点个数乘以对应的分值
+    private static int countScore(long c0, long c1, long c2, long windows) {
+        return GOMOKU_WINDOW_SCORES[1] * Long.bitCount(windows & c0 & ~c1 & ~c2)
+                + GOMOKU_WINDOW_SCORES[2] * Long.bitCount(windows & ~c0 & c1 & ~c2)
+                + GOMOKU_WINDOW_SCORES[3] * Long.bitCount(windows & c0 & c1 & ~c2)
+                + GOMOKU_WINDOW_SCORES[4] * Long.bitCount(windows & ~c0 & ~c1 & c2);
+    }
+}
@@ -32,6 +32,38 @@ public class Board {
         board[4][4] = Piece.WHITE; // 5E
     }
 
+    // 复制另一个棋盘的全部格子
+    public void copyFrom(Board other) {
+        for (int i = 0; i < SIZE; i++) {
+            System.arraycopy(other.board[i], 0, board[i], 0, SIZE);
+        }
+    }
+
+    // 两个棋盘的所有格子是否相同
+    public boolean sameCells(Board other) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                if (board[i][j] != other.board[i][j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // 某种棋子占据的格子，第row*SIZE+col位表示(row, col)
+    public long toBitmask(Piece piece) {
+        long mask = 0L;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                if (board[i][j] == piece) {
+                    mask |= 1L << (i * SIZE + j);
+                }
+            }
+        }
+        return mask;
+    }
+
     public Piece getPiece(int row, int col) {
         return board[row][col];
     }
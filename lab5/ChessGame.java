@@ -1,84 +1,556 @@
 import java.util.List;
 import java.util.Scanner;
 import java.nio.charset.StandardCharsets;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 public class ChessGame {
+    public static final long DEFAULT_HINT_BUDGET_MILLIS = 3000;
+    public static final long DEFAULT_AI_BUDGET_MILLIS = 1000;
+    public static final int DEFAULT_TABLE_MEGABYTES = 64;
+    public static final long DEFAULT_REVIEW_BUDGET_MILLIS = 500; // 赛后分析中每个局面的时间上限
+    public static final long DEFAULT_EXHIBITION_CLOCK_MILLIS = 300_000; // 车轮战中电脑每盘的用时
     private GameManager gameManager;
     private Scanner scanner;
+    private FrameRenderer renderer;
+    private boolean commandFailed; // 最近一条命令是否执行失败
+    private boolean quitRequested; // 是否收到quit命令
+    private final CommandParser parser = new CommandParser();
+    // 提示搜索线程，输入循环从不等待它
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hint-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 赛后分析线程，与提示分开，提示不会排在一次很长的分析后面而错过时间预算
+    private final ExecutorService reviewExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "game-review");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SearchEngine hintEngine; // 正在运行的提示搜索
+    private long hintBudgetMillis = DEFAULT_HINT_BUDGET_MILLIS;
+    // 电脑对手的后台预想线程，所有电脑对手共用，同一时间只预想一局
+    private final ExecutorService ponderExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ai-ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Integer, AiOpponent> aiOpponents = new HashMap<>(); // 按游戏编号
+    private long aiBudgetMillis = DEFAULT_AI_BUDGET_MILLIS;
+    private String aiNotice; // 电脑最近的落子，显示在画面底部
+    private final Map<Integer, PieceCounter> pieceCounters = new HashMap<>(); // 按游戏编号，显示得分用
+    // 提示和电脑对手共用的置换表，第一次搜索时才分配；大小为0时不使用
+    private TranspositionTable transpositionTable;
+    private int tableMegabytes = DEFAULT_TABLE_MEGABYTES;
+    private TranspositionTable.Replacement tableReplacement = TranspositionTable.Replacement.TWO_TIER;
+    // 车轮战：电脑在所有打开的黑白棋和五子棋中执白，在Exhibition的线程上落子；未开启时为null
+    private Exhibition exhibition;
+    private long exhibitionClockMillis;
+    private final Map<Integer, Exhibition.Match> exhibitionMatches = new HashMap<>(); // 按游戏编号
+    // 输入循环和车轮战的落子回调轮流使用画面和游戏列表，都在这个锁内进行
+    private final Object screenLock = new Object();
+    private boolean promptShown; // 正在等待输入命令，电脑落子时可以直接重绘
     
     public ChessGame() {
+        this(false);
+    }
+    
+    // diffMode为true时只重绘变化的行
+    public ChessGame(boolean diffMode) {
         gameManager = new GameManager();
         scanner = new Scanner(System.in, StandardCharsets.UTF_8.name());
+        renderer = new FrameRenderer(System.out, diffMode);
     }
     
     public void start() {
         boolean quit = false;
         while (!quit) {
-            clearScreen();
-            displayGame();
-            
-            System.out.print("请输入命令：");
-            String input = scanner.nextLine().trim();
+            synchronized (screenLock) {
+                long renderStart = Metrics.start();
+                displayGame();
+                renderer.flush();
+                Metrics.record(Metrics.RENDER, renderStart);
+                
+                System.out.print("请输入命令：");
+                promptShown = true;
+            }
+            String input = scanner.nextLine();
             
-            if (input.equalsIgnoreCase("quit")) {
+            String message;
+            synchronized (screenLock) {
+                promptShown = false;
+                message = execute(input);
+            }
+            if (quitRequested) {
                 quit = true;
-            } else if (input.matches("\\d+")) {
-                // 直接通过数字切换游戏
-                int gameId = Integer.parseInt(input);
-                if (!gameManager.switchGame(gameId)) {
-                    System.out.println("游戏编号不存在！");
-                    waitForEnter();
-                } else {
-                    System.out.println("已切换到游戏" + gameId);
-                    waitForEnter();
-                }
-            } else if (input.equalsIgnoreCase("peace") || input.equalsIgnoreCase("reversi") || input.equalsIgnoreCase("gomoku")) {
-                // 添加新游戏到列表末尾
-                gameManager.addNewGame(input);
-                System.out.println("已添加并切换到新游戏: " + input);
+            } else if (message != null) {
+                System.out.println(message);
                 waitForEnter();
-            } else if (input.equalsIgnoreCase("pass")) {
-                if (gameManager.getCurrentGame() instanceof ReversiGame) {
-                    if (!gameManager.pass()) {
-                        System.out.println("当前有合法落子位置，无法执行pass！");
-                        waitForEnter();
-                    }
-                } else {
-                    System.out.println("当前游戏模式不支持pass操作！");
-                    waitForEnter();
+            }
+        }
+        
+        synchronized (screenLock) {
+            if (exhibition != null) {
+                stopExhibition();
+            }
+        }
+        scanner.close();
+    }
+    
+    /**
+     * 无界面批处理模式：逐行读取命令并执行，不渲染也不等待回车。
+     * 结束后输出最终棋盘；log为true时改为每条命令输出一行制表符分隔的记录：
+     * 行号、ok/error、执行后的当前游戏编号、命令、提示信息。
+     * 执行速度（条/秒）输出到标准错误，不影响标准输出的解析；stats为true时同时输出运行统计。
+     */
+    public void runBatch(BufferedReader reader, boolean log, boolean stats) throws IOException {
+        int lineNumber = 0;
+        int commands = 0;
+        long start = System.nanoTime();
+        StringBuilder out = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (isBlankOrComment(line)) {
+                continue;
+            }
+            String message;
+            synchronized (screenLock) {
+                message = execute(line);
+            }
+            if (quitRequested) {
+                break;
+            }
+            commands += Math.max(parser.getCount(), 1);
+            if (log) {
+                Game currentGame = gameManager.getCurrentGame();
+                out.append(lineNumber).append('\t').append(commandFailed ? "error" : "ok").append('\t')
+                        .append(currentGame == null ? 0 : currentGame.getGameId()).append('\t')
+                        .append(line.trim()).append('\t').append(message == null ? "" : message).append('\n');
+                if (out.length() >= 8192) {
+                    System.out.append(out);
+                    out.setLength(0);
                 }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        
+        synchronized (screenLock) {
+            if (log) {
+                System.out.append(out);
             } else {
-                // 解析落子坐标，例如：3D
-                try {
-                    if (input.length() >= 2) {
-                        int row = Integer.parseInt(input.substring(0, 1)) - 1;
-                        char colChar = Character.toUpperCase(input.charAt(1));
-                        int col = colChar - 'A';
-                        
-                        if (!gameManager.placePiece(row, col)) {
-                            System.out.println("无效的落子位置！");
-                            waitForEnter();
-                        }
-                    } else {
-                        System.out.println("命令格式错误！");
-                        waitForEnter();
-                    }
-                } catch (Exception e) {
-                    System.out.println("输入格式错误！请使用如 3D 的格式或其他有效命令。");
-                    waitForEnter();
+                displayGame();
+                renderer.flushPlain();
+            }
+            System.out.flush();
+            if (exhibition != null) {
+                stopExhibition();
+            }
+        }
+        double seconds = Math.max(elapsed, 1) / 1e9;
+        System.err.printf("已执行 %d 条命令，用时 %.3f 毫秒，%.0f 条/秒%n", commands, elapsed / 1e6, commands / seconds);
+        if (stats) {
+            System.err.print(Metrics.dump());
+        }
+    }
+    
+    /**
+     * 执行一行输入（可以包含多条命令），返回需要提示给用户的信息，没有提示时返回null。
+     * 命令按顺序执行，遇到第一条失败的命令就停止；失败时commandFailed为true。
+     */
+    private String execute(CharSequence input) {
+        long start = Metrics.start();
+        long startBytes = Metrics.allocatedBytes();
+        String message = executeLine(input);
+        Metrics.record(Metrics.COMMAND, start);
+        Metrics.recordAllocation(Metrics.COMMAND_ALLOCATION, startBytes);
+        return message;
+    }
+    
+    private String executeLine(CharSequence input) {
+        commandFailed = false;
+        aiNotice = null;
+        if (!parser.parse(input)) {
+            return fail("输入格式错误（第" + (parser.getErrorPosition() + 1) + "个字符，" + parser.getError()
+                    + "）！请使用如 3D 的格式或其他有效命令。");
+        }
+        if (parser.getCount() == 0) {
+            return fail("命令格式错误！");
+        }
+        String message = null;
+        for (int i = 0; i < parser.getCount(); i++) {
+            message = executeCommand(i);
+            if (commandFailed || quitRequested) {
+                return message;
+            }
+        }
+        return message;
+    }
+    
+    // 执行解析结果中的第index条命令
+    private String executeCommand(int index) {
+        int type = parser.getType(index);
+        int gameId = parser.getGameId(index);
+        if (type == CommandParser.HINT) {
+            return startHint();
+        }
+        if (type == CommandParser.STATS) {
+            return transpositionTable == null ? Metrics.dump() : Metrics.dump() + transpositionTable.report();
+        }
+        if (type == CommandParser.REVIEW) {
+            return startReview();
+        }
+        // 落子、切换游戏等任何其他命令都会让正在进行的提示失效
+        cancelHint();
+        if (type == CommandParser.AI) {
+            return toggleAi();
+        }
+        if (type == CommandParser.EXHIBITION) {
+            return parser.isExhibitionOn(index) ? startExhibition(parser.getMillis(index)) : stopExhibition();
+        }
+        if (type == CommandParser.SWITCH) {
+            // 直接通过数字切换游戏
+            if (!gameManager.switchGame(gameId)) {
+                return fail("游戏编号不存在！");
+            }
+            return "已切换到游戏" + gameId;
+        }
+        if (type == CommandParser.NEW_GAME) {
+            // 添加新游戏到列表末尾
+            gameManager.addNewGame(parser.getNewGameType(index));
+            if (exhibition != null && joinExhibition(gameManager.getCurrentGame())) {
+                return "已添加并切换到新游戏: " + parser.getNewGameType(index) + "（加入车轮战）";
+            }
+            return "已添加并切换到新游戏: " + parser.getNewGameType(index);
+        }
+        if (type == CommandParser.QUIT) {
+            quitRequested = true;
+            return null;
+        }
+        // 带有 g编号: 前缀的落子或pass，先切换到对应游戏
+        if (gameId != 0 && !gameManager.switchGame(gameId)) {
+            return fail("游戏编号不存在！");
+        }
+        Game target = gameManager.getCurrentGame();
+        Exhibition.Match match = target == null ? null : exhibitionMatches.get(target.getGameId());
+        if (type == CommandParser.PASS) {
+            if (gameManager.getCurrentGame() instanceof ReversiGame) {
+                if (match != null) {
+                    return playInExhibition(match, -1, -1);
                 }
+                if (!gameManager.pass()) {
+                    return fail("当前有合法落子位置，无法执行pass！");
+                }
+                newTableGeneration();
+                playComputerTurns();
+                return null;
             }
+            return fail("当前游戏模式不支持pass操作！");
         }
-        
-        scanner.close();
+        // 落子，例如：3D
+        if (match != null) {
+            return playInExhibition(match, parser.getRow(index), parser.getCol(index));
+        }
+        if (!gameManager.placePiece(parser.getRow(index), parser.getCol(index))) {
+            return fail("无效的落子位置！");
+        }
+        newTableGeneration();
+        playComputerTurns();
+        return null;
+    }
+    
+    // 开启或关闭当前游戏的电脑对手（电脑执白）
+    private String toggleAi() {
+        Game currentGame = gameManager.getCurrentGame();
+        if (!(currentGame instanceof ReversiGame) && !(currentGame instanceof GomokuGame)) {
+            return fail("当前游戏模式不支持电脑对手！");
+        }
+        if (exhibitionMatches.containsKey(currentGame.getGameId())) {
+            return fail("车轮战中的游戏已经由电脑执白！");
+        }
+        Player computer = currentGame.getPlayer2();
+        if (computer.isComputer()) {
+            computer.setComputer(false);
+            AiOpponent ai = aiOpponents.remove(currentGame.getGameId());
+            if (ai != null) {
+                ai.stopPondering();
+            }
+            return "已关闭游戏" + currentGame.getGameId() + "的电脑对手";
+        }
+        computer.setComputer(true);
+        aiOpponents.put(currentGame.getGameId(), new AiOpponent(aiBudgetMillis, ponderExecutor, transpositionTable()));
+        playComputerTurns();
+        return "已开启游戏" + currentGame.getGameId() + "的电脑对手（执白）";
+    }
+    
+    // 轮到电脑时让电脑落子（对方被迫pass时可能连续走多步），然后在对方思考时开始后台预想
+    private void playComputerTurns() {
+        Game currentGame = gameManager.getCurrentGame();
+        AiOpponent ai = currentGame == null ? null : aiOpponents.get(currentGame.getGameId());
+        if (ai == null) {
+            return;
+        }
+        while (!currentGame.isOver() && currentGame.getCurrentPlayer().isComputer()) {
+            // 预想命中时chooseMove复用它的结果，未命中时由chooseMove自己停止预想
+            SearchEngine.Result result = ai.chooseMove(currentGame);
+            if (result == null) {
+                break;
+            }
+            boolean moved = result.isPass() ? gameManager.pass() : gameManager.placePiece(result.getRow(), result.getCol());
+            if (!moved) {
+                break;
+            }
+            newTableGeneration();
+            aiNotice = "电脑落子: " + result.getMoveText() + "（深度" + result.getDepth()
+                    + (ai.isLastMovePondered() ? "，预想命中" : "") + "）";
+        }
+        if (currentGame.isOver()) {
+            ai.stopPondering();
+            return;
+        }
+        // 同一时间只预想一局
+        for (AiOpponent other : aiOpponents.values()) {
+            other.stopPondering();
+        }
+        ai.startPondering(currentGame);
+    }
+    
+    /**
+     * 在后台线程上对当前游戏的副本做迭代加深搜索，每完成一层就输出一次更好的建议，
+     * 用完时间预算后停止。用户落子或切换游戏时会立即取消。
+     */
+    private String startHint() {
+        cancelHint();
+        Game currentGame = gameManager.getCurrentGame();
+        if (currentGame == null || currentGame.isOver()) {
+            return fail("当前游戏已结束，无法提示！");
+        }
+        if (currentGame instanceof PeaceGame) {
+            return fail("当前游戏模式不支持提示！");
+        }
+        Game position = snapshot(currentGame);
+        int gameId = currentGame.getGameId();
+        SearchEngine engine = new SearchEngine();
+        engine.setTranspositionTable(transpositionTable());
+        engine.setSharedTable(true);
+        hintEngine = engine;
+        hintExecutor.execute(() -> {
+            SearchEngine.Result result = engine.search(position, hintBudgetMillis, r -> {
+                if (!engine.isCancelled()) {
+                    System.out.println("提示[游戏" + gameId + " 深度" + r.getDepth() + "]: " + r.getMoveText()
+                            + "  评估: " + r.getScore() + "  节点: " + r.getNodes());
+                }
+            });
+            if (!engine.isCancelled() && result != null) {
+                System.out.println("提示[游戏" + gameId + "]分析完成，建议: " + result.getMoveText());
+            }
+        });
+        return "正在后台分析游戏" + gameId + "（最多" + hintBudgetMillis + "毫秒）……";
+    }
+    
+    /**
+     * 在后台逐步分析当前游戏已走的着法，各个局面在公共ForkJoinPool上并行搜索，完成后输出报告。
+     */
+    private String startReview() {
+        Game currentGame = gameManager.getCurrentGame();
+        if (!(currentGame instanceof ReversiGame) && !(currentGame instanceof GomokuGame)) {
+            return fail("当前游戏模式不支持赛后分析！");
+        }
+        if (currentGame.getHistoryLength() == 0) {
+            return fail("当前游戏还没有落子！");
+        }
+        Game game = snapshot(currentGame);
+        GameReview review = new GameReview(ForkJoinPool.commonPool(), transpositionTable(),
+                GameReview.DEFAULT_DEPTH, DEFAULT_REVIEW_BUDGET_MILLIS);
+        reviewExecutor.execute(() -> {
+            try {
+                System.out.println("游戏" + game.getGameId() + "的分析：");
+                System.out.print(GameReview.format(review.review(game)));
+            } catch (Exception e) {
+                System.out.println("游戏" + game.getGameId() + "的分析失败: " + e);
+            }
+        });
+        return "正在后台分析游戏" + game.getGameId() + "的" + game.getHistoryLength() + "步……";
+    }
+    
+    /**
+     * 开启车轮战：电脑在所有进行中的黑白棋和五子棋中执白，每盘用时clockMillis（0为默认值），
+     * 之后新加的游戏也会加入。Exhibition按剩余用时、对局阶段和负载分配每步的思考时间，
+     * 人类落子而线程都忙时抢占截止最晚的搜索。
+     */
+    private String startExhibition(long clockMillis) {
+        if (exhibition != null) {
+            return fail("车轮战已经开启！");
+        }
+        exhibition = new Exhibition(Runtime.getRuntime().availableProcessors(), 0, aiBudgetMillis,
+                transpositionTable());
+        exhibitionClockMillis = clockMillis > 0 ? clockMillis : DEFAULT_EXHIBITION_CLOCK_MILLIS;
+        int boards = 0;
+        for (Game game : gameManager.getAllGames()) {
+            if (joinExhibition(game)) {
+                boards++;
+            }
+        }
+        return "已开启车轮战：电脑在" + boards + "盘棋中执白，每盘用时" + exhibitionClockMillis + "毫秒";
+    }
+    
+    // 把一盘进行中的黑白棋或五子棋加入车轮战，原来的电脑对手由车轮战接替
+    private boolean joinExhibition(Game game) {
+        if ((!(game instanceof ReversiGame) && !(game instanceof GomokuGame)) || game.isOver()) {
+            return false;
+        }
+        AiOpponent ai = aiOpponents.remove(game.getGameId());
+        if (ai != null) {
+            ai.stopPondering();
+        }
+        game.getPlayer2().setComputer(true);
+        exhibitionMatches.put(game.getGameId(), exhibition.add(game, game.getPlayer2().getPiece(),
+                exhibitionClockMillis, this::onExhibitionMove));
+        return true;
     }
     
+    private String stopExhibition() {
+        if (exhibition == null) {
+            return fail("车轮战没有开启！");
+        }
+        exhibition.shutdown();
+        for (Exhibition.Match match : exhibitionMatches.values()) {
+            // 拿到锁之后电脑不会再修改这盘棋
+            synchronized (match) {
+                match.getGame().getPlayer2().setComputer(false);
+            }
+        }
+        int boards = exhibitionMatches.size();
+        exhibitionMatches.clear();
+        exhibition = null;
+        return "已关闭车轮战（" + boards + "盘棋），恢复为双人对弈";
+    }
+    
+    // 车轮战中人类的着法交给Exhibition，它据此为电脑排队思考，必要时抢占其他棋盘的搜索；row为-1表示pass
+    private String playInExhibition(Exhibition.Match match, int row, int col) {
+        boolean played = row < 0 ? exhibition.pass(match) : exhibition.play(match, row, col);
+        if (played) {
+            return null;
+        }
+        synchronized (match) {
+            Game game = match.getGame();
+            if (!game.isOver() && game.getCurrentPlayer().getPiece() == match.getComputerPiece()) {
+                return fail("电脑正在思考，请稍候！");
+            }
+        }
+        return fail(row < 0 ? "当前有合法落子位置，无法执行pass！" : "无效的落子位置！");
+    }
+    
+    // 车轮战的电脑落子后在Exhibition的工作线程上调用；当前游戏正在等待输入时直接重绘画面
+    private void onExhibitionMove(Exhibition.Match match, SearchEngine.Result result) {
+        synchronized (screenLock) {
+            Game game = match.getGame();
+            if (exhibitionMatches.get(game.getGameId()) != match) {
+                return; // 车轮战已经关闭
+            }
+            aiNotice = "游戏" + game.getGameId() + " 电脑落子: " + result.getMoveText() + "（深度" + result.getDepth() + "）";
+            if (promptShown && game == gameManager.getCurrentGame()) {
+                displayGame();
+                renderer.flush();
+                System.out.print("请输入命令：");
+            }
+        }
+    }
+    
+    // 游戏的副本；车轮战中的游戏可能正被电脑修改，要在这盘棋的锁内复制
+    private Game snapshot(Game game) {
+        Exhibition.Match match = exhibitionMatches.get(game.getGameId());
+        if (match == null) {
+            return game.copy();
+        }
+        synchronized (match) {
+            return game.copy();
+        }
+    }
+    
+    private void cancelHint() {
+        if (hintEngine != null) {
+            hintEngine.stop();
+            hintEngine = null;
+        }
+    }
+    
+    // 提示、电脑对手和赛后分析共用置换表，各个搜索不推进表的代，改为每走出一步棋推进一次
+    private void newTableGeneration() {
+        if (transpositionTable != null) {
+            transpositionTable.newSearch();
+        }
+    }
+    
+    private TranspositionTable transpositionTable() {
+        if (transpositionTable == null && tableMegabytes > 0) {
+            transpositionTable = new TranspositionTable((long) tableMegabytes << 20, tableReplacement);
+        }
+        return transpositionTable;
+    }
+    
+    // 在第一次搜索之前设置才有效
+    public void setTranspositionTable(int megabytes, TranspositionTable.Replacement replacement) {
+        this.tableMegabytes = megabytes;
+        this.tableReplacement = replacement;
+    }
+    
+    public void setAiBudgetMillis(long aiBudgetMillis) {
+        this.aiBudgetMillis = aiBudgetMillis;
+    }
+    
+    public void setHintBudgetMillis(long hintBudgetMillis) {
+        this.hintBudgetMillis = hintBudgetMillis;
+    }
+    
+    // 空行或以#开头的注释行
+    private static boolean isBlankOrComment(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '#') {
+                return true;
+            }
+            if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String fail(String message) {
+        commandFailed = true;
+        return message;
+    }
+    
+    // 把当前画面写入渲染器的缓冲区，由renderer.flush()一次性输出
     private void displayGame() {
+        Game currentGame = gameManager.getCurrentGame();
+        Exhibition.Match match = currentGame == null ? null : exhibitionMatches.get(currentGame.getGameId());
+        if (match == null) {
+            renderGame();
+            return;
+        }
+        // 车轮战中电脑在工作线程上落子，读取对局时要持有这盘棋的锁
+        synchronized (match) {
+            renderGame();
+        }
+    }
+    
+    private void renderGame() {
+        StringBuilder frame = renderer.begin();
         Game currentGame = gameManager.getCurrentGame();
         if (currentGame == null) {
-            System.out.println("没有可用的游戏！");
+            frame.append("没有可用的游戏！\n");
             return;
         }
         
@@ -88,9 +560,11 @@ public class ChessGame {
         // 构建标题行，在Reversi模式下显示得分
         String scoreInfo = "";
         if (currentGame instanceof ReversiGame) {
-            ReversiGame reversiGame = (ReversiGame) currentGame;
-            int blackScore = reversiGame.getScore(currentGame.getPlayer1());
-            int whiteScore = reversiGame.getScore(currentGame.getPlayer2());
+            // 得分由事件增量维护，不必每帧扫描棋盘
+            PieceCounter counter = pieceCounters.computeIfAbsent(currentGame.getGameId(),
+                    id -> PieceCounter.attach(currentGame));
+            int blackScore = counter.getCount(currentGame.getPlayer1().getPiece());
+            int whiteScore = counter.getCount(currentGame.getPlayer2().getPiece());
             scoreInfo = String.format("黑方得分: %d  白方得分: %d", blackScore, whiteScore);
         }
         
@@ -98,100 +572,104 @@ public class ChessGame {
         List<Game> allGames = gameManager.getAllGames();
         
         // 左侧显示棋盘
-        System.out.println("  A B C D E F G H    游戏信息             \t  游戏列表");
-        System.out.println("  ---------------    ----------------    \t  ----------------");
+        frame.append("  A B C D E F G H    游戏信息             \t  游戏列表\n");
+        frame.append("  ---------------    ----------------    \t  ----------------\n");
         
         for (int i = 0; i < Board.SIZE; i++) {
-            System.out.print((i + 1) + " ");
+            frame.append(i + 1).append(' ');
             
             for (int j = 0; j < Board.SIZE; j++) {
                 if (currentGame.getGameType().equals("reversi") && isValidMove(validMoves, i, j)) {
-                    System.out.print("+ ");
+                    frame.append("+ ");
                 } else {
-                    System.out.print(board.getPiece(i, j).getSymbol() + " ");
+                    frame.append(board.getPiece(i, j).getSymbol()).append(' ');
                 }
             }
             
             // 中间显示游戏状态
             if (i == 0) {
-                System.out.print("   游戏编号: " + currentGame.getGameId());
+                frame.append("   游戏编号: ").append(currentGame.getGameId());
             } else if (i == 1) {
-                System.out.print("   游戏类型: " + currentGame.getGameType());
+                frame.append("   游戏类型: ").append(currentGame.getGameType());
             } else if (i == 2) {
                 Player player1 = currentGame.getPlayer1();
-                System.out.print("   " + player1.getName() + ": " + player1.getPiece().getSymbol());
+                frame.append("   ").append(player1.getName()).append(": ").append(player1.getPiece().getSymbol());
                 if (currentGame.getCurrentPlayer() == player1) {
-                    System.out.print(" ←");
+                    frame.append(" ←");
                 }
             } else if (i == 3) {
                 Player player2 = currentGame.getPlayer2();
-                System.out.print("   " + player2.getName() + ": " + player2.getPiece().getSymbol());
+                frame.append("   ").append(player2.getName()).append(": ").append(player2.getPiece().getSymbol());
                 if (currentGame.getCurrentPlayer() == player2) {
-                    System.out.print(" ←");
+                    frame.append(" ←");
                 }
             } else if (i == 4 && currentGame instanceof ReversiGame) {
-                System.out.print("   " + scoreInfo);
+                frame.append("   ").append(scoreInfo);
             } else if (i == 4 && currentGame instanceof GomokuGame) {
                 GomokuGame gomokuGame = (GomokuGame) currentGame;
-                System.out.print("   当前轮数: " + gomokuGame.getMoveCount());
+                frame.append("   当前轮数: ").append(gomokuGame.getMoveCount());
             }
             
             // 右侧显示游戏列表
             if (i == 0) {
-                System.out.println("\t\t  游戏列表:");
+                frame.append("\t\t  游戏列表:\n");
             } 
             else if (i == 1 && i < allGames.size() + 1) {
                 Game game = allGames.get(i - 1);
-                System.out.println("\t\t  " + game.getGameId() + ". " + game.getGameType());
+                frame.append("\t\t  ").append(game.getGameId()).append(". ").append(game.getGameType()).append('\n');
             } 
             else if (i == 2 && i < allGames.size() + 1) {
                 Game game = allGames.get(i - 1);
-                System.out.println("\t\t\t  " + game.getGameId() + ". " + game.getGameType());
+                frame.append("\t\t\t  ").append(game.getGameId()).append(". ").append(game.getGameType()).append('\n');
             } 
             else if (i == 3 && i < allGames.size() + 1) {
                 Game game = allGames.get(i - 1);
-                System.out.println("\t\t\t  " + game.getGameId() + ". " + game.getGameType());
+                frame.append("\t\t\t  ").append(game.getGameId()).append(". ").append(game.getGameType()).append('\n');
             } 
             else if ((i == 4 && i < allGames.size() + 1) && currentGame instanceof ReversiGame){
                 Game game = allGames.get(i - 1);
-                System.out.println("\t  " + game.getGameId() + ". " + game.getGameType());
+                frame.append("\t  ").append(game.getGameId()).append(". ").append(game.getGameType()).append('\n');
            }
             else if ((i == 4 && i < allGames.size() + 1) && currentGame instanceof GomokuGame){
                 Game game = allGames.get(i - 1);
-                System.out.println("\t\t  " + game.getGameId() + ". " + game.getGameType());
+                frame.append("\t\t  ").append(game.getGameId()).append(". ").append(game.getGameType()).append('\n');
            }
             else if (i < allGames.size() + 1) {
                 Game game = allGames.get(i - 1);
-                System.out.println("\t\t\t\t  " + game.getGameId() + ". " + game.getGameType());
+                frame.append("\t\t\t\t  ").append(game.getGameId()).append(". ").append(game.getGameType()).append('\n');
             }
             else {
-                System.out.println();
+                frame.append('\n');
             }
         }
         
         // 显示游戏结束信息
         if (currentGame.isOver()) {
-            System.out.println("\n游戏结束！");
+            frame.append("\n游戏结束！\n");
             if (currentGame instanceof ReversiGame) {
                 ReversiGame reversiGame = (ReversiGame) currentGame;
                 Player winner = reversiGame.getWinner();
                 if (winner != null) {
-                    System.out.println(winner.getName() + " 获胜！");
+                    frame.append(winner.getName()).append(" 获胜！\n");
                 } else {
-                    System.out.println("平局！");
+                    frame.append("平局！\n");
                 }
             } else if (currentGame instanceof GomokuGame) {
                 GomokuGame gomokuGame = (GomokuGame) currentGame;
                 if (gomokuGame.isDraw()) {
-                    System.out.println("平局！");
+                    frame.append("平局！\n");
                 } else {
                     Player winner = currentGame.getCurrentPlayer();
-                    System.out.println(winner.getName() + " 获胜！");
+                    frame.append(winner.getName()).append(" 获胜！\n");
                 }
             }
         }
         
-        System.out.println("\n命令: [坐标] - 落子, 数字 - 切换游戏, peace/reversi/gomoku - 添加新游戏, pass - 跳过, quit - 退出");
+        if (aiNotice != null) {
+            frame.append('\n').append(aiNotice).append('\n');
+        }
+        
+        frame.append("\n命令: [坐标] - 落子, 数字 - 切换游戏, peace/reversi/gomoku - 添加新游戏, pass - 跳过, hint - 提示, ai - 电脑对手, exhibition on|off - 车轮战, stats - 统计, review - 赛后分析, quit - 退出\n");
     }
     
     private boolean isValidMove(List<int[]> validMoves, int row, int col) {
@@ -203,33 +681,60 @@ public class ChessGame {
         return false;
     }
     
-    private void clearScreen() {
-        try {
-            // 根据操作系统选择不同的清屏命令
-            String os = System.getProperty("os.name").toLowerCase();
-            
-            if (os.contains("windows")) {
-                // Windows系统使用cls命令清屏
-                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-            } else {
-                // Linux/Mac系统使用clear命令清屏
-                new ProcessBuilder("clear").inheritIO().start().waitFor();
-            }
-        } catch (IOException | InterruptedException e) {
-            // 如果清屏命令执行失败，退回到使用换行的方式
-            for (int i = 0; i < 50; i++) {
-                System.out.println();
-            }
-        }
-    }
-    
     private void waitForEnter() {
         System.out.println("按回车键继续...");
         scanner.nextLine();
     }
     
-    public static void main(String[] args) {
-        ChessGame game = new ChessGame();
-        game.start();
+    public static void main(String[] args) throws IOException {
+        boolean diffMode = false;
+        boolean batch = false;
+        boolean log = false;
+        boolean stats = false;
+        long hintBudgetMillis = DEFAULT_HINT_BUDGET_MILLIS;
+        long aiBudgetMillis = DEFAULT_AI_BUDGET_MILLIS;
+        int tableMegabytes = DEFAULT_TABLE_MEGABYTES;
+        TranspositionTable.Replacement tableReplacement = TranspositionTable.Replacement.TWO_TIER;
+        String file = null;
+        for (String arg : args) {
+            if (arg.equals("--diff")) {
+                diffMode = true;
+            } else if (arg.equals("--batch")) {
+                batch = true;
+            } else if (arg.equals("--log")) {
+                log = true;
+            } else if (arg.equals("--stats")) {
+                stats = true;
+            } else if (arg.equals("--metrics")) {
+                // 必须在Metrics类第一次使用之前设置
+                System.setProperty("game.metrics", "true");
+            } else if (arg.startsWith("--weights=")) {
+                // 同样必须在第一次创建SearchEngine之前设置
+                System.setProperty("game.weights", arg.substring("--weights=".length()));
+            } else if (arg.startsWith("--hint-ms=")) {
+                hintBudgetMillis = Long.parseLong(arg.substring("--hint-ms=".length()));
+            } else if (arg.startsWith("--ai-ms=")) {
+                aiBudgetMillis = Long.parseLong(arg.substring("--ai-ms=".length()));
+            } else if (arg.startsWith("--tt-mb=")) {
+                tableMegabytes = Integer.parseInt(arg.substring("--tt-mb=".length()));
+            } else if (arg.startsWith("--tt-policy=")) {
+                tableReplacement = TranspositionTable.Replacement.parse(arg.substring("--tt-policy=".length()));
+            } else if (!arg.startsWith("--")) {
+                file = arg;
+            }
+        }
+        ChessGame game = new ChessGame(diffMode);
+        game.setHintBudgetMillis(hintBudgetMillis);
+        game.setAiBudgetMillis(aiBudgetMillis);
+        game.setTranspositionTable(tableMegabytes, tableReplacement);
+        if (batch) {
+            // 批处理模式：从文件读取命令，未指定文件或为"-"时从标准输入（管道）读取
+            InputStream in = (file == null || file.equals("-")) ? System.in : new FileInputStream(file);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                game.runBatch(reader, log, stats);
+            }
+        } else {
+            game.start();
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,305 @@
+/**
+ * 手写的命令解析器，解析过程中不创建任何对象，也不使用异常表示输入错误。
+ *
+ * 一行可以包含多条命令，用空白、逗号或分号分隔，#之后的内容视为注释：
+ * - 3D / 12AB：落子，行号为1开始的十进制数，列号为字母（A-Z，之后为AA、AB……），不区分大小写
+ * - g2:3D / g2:pass：先切换到游戏2再执行后面的命令
+ * - 2：切换到游戏2
+ * - pass、peace、reversi、gomoku、quit：与原来的单词命令相同
+ * - hint：在后台分析当前局面
+ * - ai：开启或关闭当前游戏的电脑对手（执白）
+ * - stats：显示运行统计
+ * - review：逐步分析当前游戏已走的着法
+ * - exhibition on [毫秒] / exhibition off：开启或关闭车轮战，毫秒为电脑每盘的用时
+ *
+ * 解析结果保存在复用的数组中，通过 getCount() 和各个 getter 按下标读取。
+ * 只要有一条命令格式错误，整行都不会被执行，通过 getError()/getErrorPosition() 报告。
+ */
+public class CommandParser {
+    public static final int MOVE = 1;
+    public static final int SWITCH = 2;
+    public static final int PASS = 3;
+    public static final int NEW_GAME = 4;
+    public static final int QUIT = 5;
+    public static final int HINT = 6;
+    public static final int AI = 7;
+    public static final int STATS = 8;
+    public static final int REVIEW = 9;
+    public static final int EXHIBITION = 10;
+
+    public static final int MAX_COMMANDS = 64; // 一行最多的命令数
+    private static final int MAX_DIGITS = 6; // 行号和游戏编号的最大位数，避免溢出
+    private static final int MAX_LETTERS = 3; // 列号的最大字母数
+    private static final int MAX_MILLIS_DIGITS = 9; // 车轮战用时的最大位数
+
+    // 新游戏的类型名，解析结果直接引用这些常量
+    private static final String[] GAME_TYPES = {"peace", "reversi", "gomoku"};
+
+    private final int[] types = new int[MAX_COMMANDS];
+    private final int[] gameIds = new int[MAX_COMMANDS]; // 0表示当前游戏
+    private final int[] rows = new int[MAX_COMMANDS]; // 从0开始
+    private final int[] cols = new int[MAX_COMMANDS]; // 从0开始
+    private final String[] newGameTypes = new String[MAX_COMMANDS];
+    private final boolean[] exhibitionOn = new boolean[MAX_COMMANDS];
+    private final long[] millis = new long[MAX_COMMANDS]; // 0表示未指定
+    private int count;
+    private String error;
+    private int errorPosition;
+
+    // 解析一行输入，成功返回true
+    public boolean parse(CharSequence line) {
+        count = 0;
+        error = null;
+        errorPosition = -1;
+        int length = line.length();
+        int pos = 0;
+        while (true) {
+            pos = skipSeparators(line, pos, length);
+            if (pos >= length || line.charAt(pos) == '#') {
+                return true;
+            }
+            if (count == MAX_COMMANDS) {
+                return fail("一行的命令过多", pos);
+            }
+            pos = parseCommand(line, pos, length);
+            if (pos < 0) {
+                count = 0;
+                return false;
+            }
+            count++;
+        }
+    }
+
+    // 解析一条命令，成功返回命令之后的位置，失败返回-1
+    private int parseCommand(CharSequence line, int pos, int length) {
+        gameIds[count] = 0;
+        char c = line.charAt(pos);
+        // g<编号>: 前缀
+        if ((c == 'g' || c == 'G') && pos + 1 < length && isDigit(line.charAt(pos + 1))) {
+            int end = pos + 1;
+            int gameId = 0;
+            while (end < length && isDigit(line.charAt(end))) {
+                if (end - pos - 1 >= MAX_DIGITS) {
+                    return failPos("游戏编号过大", pos);
+                }
+                gameId = gameId * 10 + (line.charAt(end) - '0');
+                end++;
+            }
+            if (end >= length || line.charAt(end) != ':') {
+                return failPos("游戏前缀后缺少冒号", end);
+            }
+            pos = end + 1;
+            if (pos >= length || isSeparator(line.charAt(pos))) {
+                return failPos("冒号后缺少命令", pos);
+            }
+            int next = parseCommand(line, pos, length);
+            if (next < 0) {
+                return -1;
+            }
+            if (types[count] != MOVE && types[count] != PASS) {
+                return failPos("游戏前缀只能用于落子或pass", pos);
+            }
+            if (gameIds[count] != 0) {
+                return failPos("游戏前缀不能嵌套", pos);
+            }
+            gameIds[count] = gameId;
+            return next;
+        }
+        if (isDigit(c)) {
+            return parseNumberOrMove(line, pos, length);
+        }
+        return parseKeyword(line, pos, length);
+    }
+
+    // 纯数字为切换游戏，数字后跟字母为落子
+    private int parseNumberOrMove(CharSequence line, int pos, int length) {
+        int start = pos;
+        int number = 0;
+        while (pos < length && isDigit(line.charAt(pos))) {
+            if (pos - start >= MAX_DIGITS) {
+                return failPos("数字过大", start);
+            }
+            number = number * 10 + (line.charAt(pos) - '0');
+            pos++;
+        }
+        if (pos >= length || isSeparator(line.charAt(pos))) {
+            types[count] = SWITCH;
+            gameIds[count] = number;
+            return pos;
+        }
+        int letterStart = pos;
+        int col = 0;
+        while (pos < length && isLetter(line.charAt(pos))) {
+            if (pos - letterStart >= MAX_LETTERS) {
+                return failPos("列号过长", letterStart);
+            }
+            col = col * 26 + (Character.toUpperCase(line.charAt(pos)) - 'A' + 1);
+            pos++;
+        }
+        if (pos == letterStart || (pos < length && !isSeparator(line.charAt(pos)))) {
+            return failPos("坐标格式错误", start);
+        }
+        if (number == 0) {
+            return failPos("行号从1开始", start);
+        }
+        types[count] = MOVE;
+        rows[count] = number - 1;
+        cols[count] = col - 1;
+        return pos;
+    }
+
+    private int parseKeyword(CharSequence line, int pos, int length) {
+        int end = pos;
+        while (end < length && !isSeparator(line.charAt(end))) {
+            end++;
+        }
+        if (matches(line, pos, end, "pass")) {
+            types[count] = PASS;
+        } else if (matches(line, pos, end, "quit")) {
+            types[count] = QUIT;
+        } else if (matches(line, pos, end, "hint")) {
+            types[count] = HINT;
+        } else if (matches(line, pos, end, "ai")) {
+            types[count] = AI;
+        } else if (matches(line, pos, end, "stats")) {
+            types[count] = STATS;
+        } else if (matches(line, pos, end, "review")) {
+            types[count] = REVIEW;
+        } else if (matches(line, pos, end, "exhibition")) {
+            return parseExhibition(line, end, length);
+        } else {
+            for (String gameType : GAME_TYPES) {
+                if (matches(line, pos, end, gameType)) {
+                    types[count] = NEW_GAME;
+                    newGameTypes[count] = gameType;
+                    return end;
+                }
+            }
+            return failPos("未知命令", pos);
+        }
+        return end;
+    }
+
+    // exhibition之后的on [毫秒] 或 off；on后面不是纯数字时，那是下一条命令（例如3D）
+    private int parseExhibition(CharSequence line, int pos, int length) {
+        int start = skipSeparators(line, pos, length);
+        int end = start;
+        while (end < length && !isSeparator(line.charAt(end))) {
+            end++;
+        }
+        types[count] = EXHIBITION;
+        millis[count] = 0;
+        if (matches(line, start, end, "off")) {
+            exhibitionOn[count] = false;
+            return end;
+        }
+        if (!matches(line, start, end, "on")) {
+            return failPos("exhibition后应为on或off", start);
+        }
+        exhibitionOn[count] = true;
+        int numberStart = skipSeparators(line, end, length);
+        int numberEnd = numberStart;
+        long value = 0;
+        while (numberEnd < length && isDigit(line.charAt(numberEnd))) {
+            if (numberEnd - numberStart >= MAX_MILLIS_DIGITS) {
+                return failPos("时间过长", numberStart);
+            }
+            value = value * 10 + (line.charAt(numberEnd) - '0');
+            numberEnd++;
+        }
+        if (numberEnd == numberStart || (numberEnd < length && !isSeparator(line.charAt(numberEnd)))) {
+            return end;
+        }
+        if (value == 0) {
+            return failPos("时间必须大于0", numberStart);
+        }
+        millis[count] = value;
+        return numberEnd;
+    }
+
+    // 不区分大小写地比较 line[start, end) 和关键字
+    private static boolean matches(CharSequence line, int start, int end, String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toLowerCase(line.charAt(start + i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSeparators(CharSequence line, int pos, int length) {
+        while (pos < length && isSeparator(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == ',' || c == ';' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private boolean fail(String message, int position) {
+        error = message;
+        errorPosition = position;
+        return false;
+    }
+
+    private int failPos(String message, int position) {
+        fail(message, position);
+        return -1;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getType(int index) {
+        return types[index];
+    }
+
+    public int getGameId(int index) {
+        return gameIds[index];
+    }
+
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    public int getCol(int index) {
+        return cols[index];
+    }
+
+    public String getNewGameType(int index) {
+        return newGameTypes[index];
+    }
+
+    // EXHIBITION命令是on还是off
+    public boolean isExhibitionOn(int index) {
+        return exhibitionOn[index];
+    }
+
+    // EXHIBITION on 指定的毫秒数，未指定时为0
+    public long getMillis(int index) {
+        return millis[index];
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // 出错的字符位置，从0开始
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+}
@@ -0,0 +1,390 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 车轮战：电脑同时在很多盘棋中执一方，人类在各自的棋盘上随时落子。
+ *
+ * 每当轮到电脑，就为这盘棋生成一个请求，请求的截止时间由电脑的剩余用时、对局阶段
+ * （估计还要走的步数）和当前负载共同决定：排队和正在思考的棋盘越多，每盘分到的时间越少，
+ * 保证所有棋盘的响应时间都有上界。请求按截止时间排序（最早截止优先），由一个work-stealing的
+ * ForkJoinPool执行，每个任务开始时取出最紧急的请求，而不是提交它的那个请求。
+ *
+ * 人类落子产生新请求而所有工作线程都在忙时，截止时间最晚、且已经思考了最短时间的搜索会被抢占：
+ * 它立即结束，走出已完成的迭代中最好的着法，让出线程给更紧急的棋盘。
+ *
+ * 对局的修改都在棋盘的锁内进行，人类通过play()/pass()落子，电脑的着法在工作线程上落下，
+ * 落子后通过MoveListener通知。
+ */
+public class Exhibition {
+    private static final long MIN_THINK_NANOS = 20_000_000L; // 每步至少思考的时间，抢占也不会早于它
+
+    private final ForkJoinPool pool;
+    private final int threads;
+    private final TranspositionTable table; // 可以为null
+    private final long incrementNanos;
+    private final long maxResponseNanos;
+    private final PriorityBlockingQueue<Request> pending = new PriorityBlockingQueue<>();
+    private final Set<Request> running = ConcurrentHashMap.newKeySet();
+    private final LatencyHistogram responseTimes = new LatencyHistogram("电脑响应", true);
+    private final AtomicInteger preemptions = new AtomicInteger();
+    private final AtomicInteger fallbacks = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean stopped; // shutdown之后不再落子
+
+    // 电脑落子后的回调，在工作线程上调用
+    public interface MoveListener {
+        void onComputerMove(Match match, SearchEngine.Result result);
+    }
+
+    // 车轮战中的一盘棋
+    public final class Match {
+        private final Game game;
+        private final Piece computer;
+        private final MoveListener listener;
+        private long clockNanos;   // 电脑的剩余用时
+        private long requestNanos; // 轮到电脑的时刻
+        private int computerMoves;
+        private long totalResponseNanos;
+        private boolean flagged;   // 电脑是否超时过
+
+        Match(Game game, Piece computer, long clockNanos, MoveListener listener) {
+            this.game = game;
+            this.computer = computer;
+            this.clockNanos = clockNanos;
+            this.listener = listener;
+        }
+
+        public Game getGame() {
+            return game;
+        }
+
+        public Piece getComputerPiece() {
+            return computer;
+        }
+
+        public synchronized long getClockNanos() {
+            return clockNanos;
+        }
+
+        public synchronized int getComputerMoves() {
+            return computerMoves;
+        }
+
+        // 电脑每步的平均响应时间
+        public synchronized long getMeanResponseNanos() {
+            return computerMoves == 0 ? 0 : totalResponseNanos / computerMoves;
+        }
+
+        public synchronized boolean isFlagged() {
+            return flagged;
+        }
+
+        private boolean computerToMove() {
+            return !game.isOver() && game.getCurrentPlayer().getPiece() == computer;
+        }
+    }
+
+    // 一次轮到电脑的思考请求
+    private final class Request implements Comparable<Request> {
+        final Match match;
+        final long deadline;
+        final long order = sequence.incrementAndGet(); // 截止时间相同时先到先得
+        final SearchEngine engine = new SearchEngine();
+        volatile long startNanos;
+
+        Request(Match match, long deadline) {
+            this.match = match;
+            this.deadline = deadline;
+            engine.setTranspositionTable(table);
+            engine.setSharedTable(true);
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            int byDeadline = Long.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * @param threads          思考用的线程数
+     * @param incrementMillis  电脑每走一步加的时间
+     * @param maxResponseMillis 负载很高时每步响应时间的目标上界
+     * @param table            所有棋盘共用的置换表，可以为null
+     */
+    public Exhibition(int threads, long incrementMillis, long maxResponseMillis, TranspositionTable table) {
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.table = table;
+        if (table != null) {
+            table.newSearch(); // 整场车轮战是一代，各棋盘的搜索不再各自推进
+        }
+        this.incrementNanos = incrementMillis * 1_000_000L;
+        this.maxResponseNanos = maxResponseMillis * 1_000_000L;
+    }
+
+    /**
+     * 加入一盘棋，电脑执computer一方，用时clockMillis；如果已经轮到电脑，立即开始思考。
+     * 和平棋没有电脑对手，会抛出IllegalArgumentException。
+     */
+    public Match add(Game game, Piece computer, long clockMillis, MoveListener listener) {
+        if (game instanceof PeaceGame) {
+            throw new IllegalArgumentException("和平棋不支持电脑对手");
+        }
+        Match match = new Match(game, computer, clockMillis * 1_000_000L, listener);
+        synchronized (match) {
+            if (match.computerToMove()) {
+                submit(match);
+            }
+        }
+        return match;
+    }
+
+    // 人类落子；不是人类的回合或着法非法时返回false
+    public boolean play(Match match, int row, int col) {
+        synchronized (match) {
+            if (match.game.isOver() || match.computerToMove() || !match.game.placePiece(row, col)) {
+                return false;
+            }
+            if (match.computerToMove()) {
+                submit(match);
+            }
+            return true;
+        }
+    }
+
+    // 人类pass（只有黑白棋无处落子时可以）
+    public boolean pass(Match match) {
+        synchronized (match) {
+            if (!(match.game instanceof ReversiGame) || match.computerToMove()
+                    || !((ReversiGame) match.game).pass()) {
+                return false;
+            }
+            if (match.computerToMove()) {
+                submit(match);
+            }
+            return true;
+        }
+    }
+
+    // 在棋盘的锁内调用
+    private void submit(Match match) {
+        long now = System.nanoTime();
+        match.requestNanos = now;
+        Request request = new Request(match, now + budget(match));
+        pending.add(request);
+        if (running.size() >= threads) {
+            preemptFor(request, now);
+        }
+        pool.execute(this::runNext);
+    }
+
+    /**
+     * 这一步的思考时间：按剩余用时和预计还要走的步数平分，再按负载（排队和正在思考的请求数）
+     * 限制在maxResponse * 线程数 / 请求数以内，不少于MIN_THINK_NANOS。
+     */
+    private long budget(Match match) {
+        int empties = match.game.getBoard().countPieces(Piece.EMPTY);
+        // 黑白棋下到满盘，电脑还要走大约一半的空格；五子棋很少下满，按剩余空格的四分之一估计
+        int movesLeft = match.game instanceof ReversiGame ? empties / 2 + 1 : Math.max(8, empties / 4);
+        long byClock = match.clockNanos / (movesLeft + 1) + incrementNanos * 3 / 4;
+        int demand = pending.size() + running.size() + 1;
+        long byLoad = maxResponseNanos * threads / demand;
+        return Math.max(MIN_THINK_NANOS, Math.min(byClock, Math.min(byLoad, maxResponseNanos)));
+    }
+
+    // 所有线程都在忙时，抢占截止时间最晚的那个搜索（如果它比新请求晚，且已经思考了足够的时间）
+    private void preemptFor(Request request, long now) {
+        Request victim = null;
+        for (Request candidate : running) {
+            if (candidate.deadline > request.deadline && now - candidate.startNanos >= MIN_THINK_NANOS
+                    && (victim == null || candidate.deadline > victim.deadline)) {
+                victim = candidate;
+            }
+        }
+        if (victim != null) {
+            victim.engine.setDeadline(now);
+            preemptions.incrementAndGet();
+        }
+    }
+
+    // 工作线程的任务：取出最紧急的请求并走一步
+    private void runNext() {
+        Request request = pending.poll();
+        if (request == null) {
+            return;
+        }
+        Match match = request.match;
+        Game position;
+        synchronized (match) {
+            position = match.game.copy();
+        }
+        request.startNanos = System.nanoTime();
+        request.engine.setDeadline(Math.max(request.deadline, request.startNanos + MIN_THINK_NANOS));
+        running.add(request);
+        SearchEngine.Result result;
+        try {
+            result = request.engine.search(position, 0, null);
+        } finally {
+            running.remove(request);
+        }
+        SearchEngine.Result played = null;
+        synchronized (match) {
+            if (stopped || !match.computerToMove()) {
+                return;
+            }
+            if (result == null) {
+                // 第一层都没搜完就被抢占了，走第一个合法着法
+                List<int[]> moves = match.game.getValidMoves();
+                result = moves.isEmpty() ? new SearchEngine.Result(-1, -1, 0, 0, 0, 0)
+                        : new SearchEngine.Result(moves.get(0)[0], moves.get(0)[1], 0, 0, 0, 0);
+                fallbacks.incrementAndGet();
+            }
+            boolean moved = result.isPass() ? ((ReversiGame) match.game).pass()
+                    : match.game.placePiece(result.getRow(), result.getCol());
+            if (moved) {
+                long now = System.nanoTime();
+                long response = now - match.requestNanos;
+                responseTimes.recordValue(response);
+                match.computerMoves++;
+                match.totalResponseNanos += response;
+                match.clockNanos -= response;
+                if (match.clockNanos < 0) {
+                    match.flagged = true;
+                    match.clockNanos = 0;
+                }
+                match.clockNanos += incrementNanos;
+                played = result;
+                // 人类被迫pass时仍轮到电脑
+                if (match.computerToMove()) {
+                    submit(match);
+                }
+            }
+        }
+        if (played != null && match.listener != null) {
+            match.listener.onComputerMove(match, played);
+        }
+    }
+
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    public int getPreemptions() {
+        return preemptions.get();
+    }
+
+    // 被抢占得太早、只能走第一个合法着法的次数
+    public int getFallbacks() {
+        return fallbacks.get();
+    }
+
+    /**
+     * 停止车轮战：正在进行的搜索立即结束，之后不再有电脑落子。
+     * 调用者拿到某盘棋的锁之后，这盘棋不会再被电脑修改。
+     */
+    public void shutdown() {
+        stopped = true;
+        pool.shutdownNow();
+        for (Request request : running) {
+            request.engine.stop();
+        }
+    }
+
+    /**
+     * 模拟一场车轮战：人类执黑，思考一段随机时间后随机落子，电脑执白，直到所有对局结束。
+     * 用法: java Exhibition [棋盘数] [线程数] [电脑用时秒] [人类平均思考毫秒] [随机种子]
+     */
+    public static void main(String[] args) throws Exception {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long clockMillis = args.length > 2 ? Long.parseLong(args[2]) * 1000 : 60_000;
+        long thinkMillis = args.length > 3 ? Long.parseLong(args[3]) : 500;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        Exhibition exhibition = new Exhibition(threads, 1000, 2000, new TranspositionTable(64L << 20,
+                TranspositionTable.Replacement.TWO_TIER));
+        ScheduledExecutorService humans = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch finished = new CountDownLatch(boards);
+        Random random = new Random(seed);
+        List<Match> matches = new ArrayList<>();
+        MoveListener listener = (match, result) -> {
+            if (match.game.isOver()) {
+                finished.countDown();
+            } else {
+                scheduleHuman(exhibition, match, humans, random, thinkMillis, finished);
+            }
+        };
+        long start = System.nanoTime();
+        for (int i = 0; i < boards; i++) {
+            Game game = GameManager.createGame(i % 2 == 0 ? "reversi" : "gomoku", i + 1);
+            Match match = exhibition.add(game, Piece.WHITE, clockMillis, listener);
+            matches.add(match);
+            scheduleHuman(exhibition, match, humans, random, thinkMillis, finished);
+        }
+        finished.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        humans.shutdownNow();
+        exhibition.shutdown();
+
+        long slowest = 0;
+        long fastest = Long.MAX_VALUE;
+        int flagged = 0;
+        int moves = 0;
+        for (Match match : matches) {
+            slowest = Math.max(slowest, match.getMeanResponseNanos());
+            fastest = Math.min(fastest, match.getMeanResponseNanos());
+            flagged += match.isFlagged() ? 1 : 0;
+            moves += match.getComputerMoves();
+        }
+        System.out.printf("棋盘: %d  线程: %d  用时: %.1fs  电脑落子: %d  抢占: %d  被迫直接落子: %d  超时的棋盘: %d%n",
+                boards, threads, seconds, moves, exhibition.getPreemptions(), exhibition.getFallbacks(), flagged);
+        StringBuilder out = new StringBuilder(String.format("%-22s %10s %10s %10s %10s %10s %10s%n",
+                "(毫秒)", "次数", "平均", "p50", "p99", "p999", "最大"));
+        LatencyHistogram histogram = exhibition.getResponseTimes();
+        out.append(String.format("%-22s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", histogram.getName(),
+                histogram.getCount(), histogram.getMean() / 1e6, histogram.getPercentile(0.50) / 1e6,
+                histogram.getPercentile(0.99) / 1e6, histogram.getPercentile(0.999) / 1e6, histogram.getMax() / 1e6));
+        System.out.print(out);
+        System.out.printf("各棋盘平均响应: 最快 %.1f 毫秒  最慢 %.1f 毫秒%n", fastest / 1e6, slowest / 1e6);
+    }
+
+    // 人类思考0~2倍平均时间后随机落子；没有合法着法时pass
+    private static void scheduleHuman(Exhibition exhibition, Match match, ScheduledExecutorService humans,
+                                      Random random, long thinkMillis, CountDownLatch finished) {
+        long delay = (long) (random.nextDouble() * 2 * thinkMillis);
+        humans.schedule(() -> {
+            Game game = match.getGame();
+            boolean over;
+            synchronized (match) {
+                List<int[]> moves = game.getValidMoves();
+                if (!game.isOver()) {
+                    if (moves.isEmpty()) {
+                        exhibition.pass(match);
+                    } else {
+                        int[] move = moves.get(random.nextInt(moves.size()));
+                        exhibition.play(match, move[0], move[1]);
+                    }
+                }
+                over = game.isOver();
+            }
+            if (over) {
+                finished.countDown();
+            } else if (game.getCurrentPlayer().getPiece() != match.getComputerPiece()) {
+                // 电脑被迫pass，人类接着走
+                scheduleHuman(exhibition, match, humans, random, thinkMillis, finished);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
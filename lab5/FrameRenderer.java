@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * 终端画面渲染器：整帧先写入可复用的缓冲区，再一次性输出。
+ * 清屏和光标定位使用ANSI转义序列，不再为每一帧启动clear/cls进程；
+ * 不支持转义序列的传统Windows控制台仍然用cls清屏后整帧输出，此时没有差分模式。
+ *
+ * 差分模式下只重绘与上一帧不同的行：行内含有制表符和全角字符，
+ * 字符下标无法对应到终端列，所以以行为最小重绘单位。
+ */
+public class FrameRenderer {
+    private static final String HOME = "\033[H"; // 光标移到左上角
+    private static final String CLEAR_SCREEN = "\033[2J"; // 清除整个屏幕
+    private static final String CLEAR_LINE_END = "\033[K"; // 清除到行尾
+    private static final String CLEAR_BELOW = "\033[J"; // 清除光标之后的内容
+    private static final boolean ANSI_SUPPORTED = ansiSupported(); // 终端能否处理ANSI转义序列
+
+    private final PrintStream out;
+    private final boolean diffMode;
+    private StringBuilder frame = new StringBuilder(4096); // 当前帧
+    private StringBuilder previous = new StringBuilder(4096); // 上一帧（差分模式）
+    private final StringBuilder output = new StringBuilder(4096); // 实际写出的内容
+    private int[] lineStarts = new int[64];
+    private int[] previousLineStarts = new int[64];
+    private int previousLineCount = 0;
+    private boolean fullRepaint = true;
+
+    public FrameRenderer(PrintStream out, boolean diffMode) {
+        this.out = out;
+        this.diffMode = diffMode && ANSI_SUPPORTED;
+    }
+
+    // 非Windows的终端都支持ANSI转义序列；Windows上只有Windows Terminal、ConEmu、ANSICON
+    // 和带TERM的终端（如Git Bash）支持，传统控制台会把转义序列原样打印出来
+    private static boolean ansiSupported() {
+        if (!System.getProperty("os.name").toLowerCase().contains("windows")) {
+            return true;
+        }
+        return System.getenv("WT_SESSION") != null || "ON".equalsIgnoreCase(System.getenv("ConEmuANSI"))
+                || System.getenv("ANSICON") != null || System.getenv("TERM") != null;
+    }
+
+    // 开始新的一帧，返回清空后的缓冲区
+    public StringBuilder begin() {
+        frame.setLength(0);
+        return frame;
+    }
+
+    // 下一帧强制整屏重绘
+    public void invalidate() {
+        fullRepaint = true;
+    }
+
+    public boolean isDiffMode() {
+        return diffMode;
+    }
+
+    // 不带任何转义序列地输出当前帧，用于批处理模式
+    public void flushPlain() {
+        out.append(frame);
+        out.flush();
+    }
+
+    // 把当前帧一次性写到终端
+    public void flush() {
+        if (!ANSI_SUPPORTED) {
+            clearWithCls();
+            flushPlain();
+            return;
+        }
+        output.setLength(0);
+        int lineCount = diffMode ? indexLines() : 0;
+        if (!diffMode || fullRepaint) {
+            output.append(HOME).append(CLEAR_SCREEN).append(frame);
+        } else {
+            appendChangedLines(lineCount);
+        }
+        out.append(output);
+        out.flush();
+
+        if (diffMode) {
+            // 交换缓冲区，当前帧成为下一次比较的基准
+            StringBuilder tmp = previous;
+            previous = frame;
+            frame = tmp;
+            int[] tmpStarts = previousLineStarts;
+            previousLineStarts = lineStarts;
+            lineStarts = tmpStarts;
+            previousLineCount = lineCount;
+        }
+        fullRepaint = false;
+    }
+
+    private void clearWithCls() {
+        out.flush();
+        try {
+            new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
+        } catch (IOException | InterruptedException e) {
+            // 清屏失败时直接输出下一帧
+        }
+    }
+
+    // 只输出发生变化的行，并清掉帧下方上一轮遗留的提示信息
+    private void appendChangedLines(int lineCount) {
+        for (int line = 0; line < lineCount; line++) {
+            int start = lineStarts[line];
+            int end = lineEnd(frame, lineStarts, lineCount, line);
+            if (line < previousLineCount) {
+                int prevStart = previousLineStarts[line];
+                int prevEnd = lineEnd(previous, previousLineStarts, previousLineCount, line);
+                if (sameContent(frame, start, end, previous, prevStart, prevEnd)) {
+                    continue;
+                }
+            }
+            output.append("\033[").append(line + 1).append(";1H");
+            output.append(frame, start, end).append(CLEAR_LINE_END);
+        }
+        output.append("\033[").append(lineCount + 1).append(";1H").append(CLEAR_BELOW);
+    }
+
+    // 记录当前帧每一行的起始下标，返回行数
+    private int indexLines() {
+        int count = 0;
+        int start = 0;
+        int length = frame.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length ? start < length : frame.charAt(i) == '\n') {
+                if (count == lineStarts.length) {
+                    int[] grown = new int[count * 2];
+                    System.arraycopy(lineStarts, 0, grown, 0, count);
+                    lineStarts = grown;
+                }
+                lineStarts[count++] = start;
+                start = i + 1;
+            }
+        }
+        return count;
+    }
+
+    // 行的结束下标（不含换行符）
+    private static int lineEnd(StringBuilder text, int[] starts, int lineCount, int line) {
+        if (line + 1 < lineCount) {
+            return starts[line + 1] - 1;
+        }
+        int end = text.length();
+        return (end > starts[line] && text.charAt(end - 1) == '\n') ? end - 1 : end;
+    }
+
+    private static boolean sameContent(StringBuilder a, int aStart, int aEnd,
+                                       StringBuilder b, int bStart, int bEnd) {
+        if (aEnd - aStart != bEnd - bStart) {
+            return false;
+        }
+        for (int i = 0; i < aEnd - aStart; i++) {
+            if (a.charAt(aStart + i) != b.charAt(bStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
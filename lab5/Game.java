@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public abstract class Game {
@@ -9,6 +11,16 @@ public abstract class Game {
     protected Player player2;
     protected Player currentPlayer;
     protected boolean gameOver;
+    // 对局记录：成功的落子按顺序编码为row*SIZE+col，主动pass记为PASS；自动pass不记录，重放时会自然发生
+    private int[] history = new int[Board.SIZE * Board.SIZE];
+    private int historyLength;
+    // 注册的监听者，增删时整体替换数组，分发时不加锁也不创建迭代器
+    private volatile GameListener[] listeners = NO_LISTENERS;
+    // 是否计入运行统计：只有GameManager管理的对局才计入，副本和搜索、perft、重放中的对局都不计入
+    private boolean measured;
+
+    public static final int PASS = -1;
+    private static final GameListener[] NO_LISTENERS = new GameListener[0];
 
     public Game(int gameId, String gameType) {
         this.gameId = gameId;
@@ -20,11 +32,92 @@ public abstract class Game {
         this.gameOver = false;
     }
 
-    public abstract boolean placePiece(int row, int col);
-    
-    public abstract boolean isGameOver();
-    
-    public abstract List<int[]> getValidMoves();
+    // 落子，成功返回true；具体规则由子类的applyMove实现
+    public boolean placePiece(int row, int col) {
+        boolean wasOver = gameOver;
+        boolean placed = applyMove(row, col);
+        if (placed) {
+            recordMove(row * Board.SIZE + col);
+            if (gameOver && !wasOver) {
+                fireGameOver();
+            }
+        }
+        return placed;
+    }
+
+    public boolean isGameOver() {
+        if (!measured) {
+            return checkGameOver();
+        }
+        long start = Metrics.start();
+        boolean over = checkGameOver();
+        Metrics.record(Metrics.IS_GAME_OVER, start);
+        return over;
+    }
+
+    public List<int[]> getValidMoves() {
+        MoveGenerationEvent event = new MoveGenerationEvent();
+        event.begin();
+        long start = measured ? Metrics.start() : 0L;
+        List<int[]> validMoves = computeValidMoves();
+        if (measured) {
+            Metrics.record(Metrics.GET_VALID_MOVES, start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameType = gameType;
+            event.gameId = gameId;
+            event.moves = validMoves.size();
+            event.commit();
+        }
+        return validMoves;
+    }
+
+    // 各游戏的落子规则
+    protected abstract boolean applyMove(int row, int col);
+
+    // 各游戏的结束条件
+    protected abstract boolean checkGameOver();
+
+    // 各游戏当前玩家的合法落子位置
+    protected abstract List<int[]> computeValidMoves();
+
+    // 复制一份独立的对局，用于搜索时试走而不影响原对局
+    public abstract Game copy();
+
+    // 把通用状态复制到target，currentPlayer按先后手对应到target的玩家
+    protected void copyStateTo(Game target) {
+        target.board.copyFrom(board);
+        target.currentPlayer = (currentPlayer == player1) ? target.player1 : target.player2;
+        target.gameOver = gameOver;
+        if (target.history.length < historyLength) {
+            target.history = new int[history.length];
+        }
+        System.arraycopy(history, 0, target.history, 0, historyLength);
+        target.historyLength = historyLength;
+    }
+
+    // 在对局记录末尾追加一步，cell为row*SIZE+col或PASS
+    protected void recordMove(int cell) {
+        if (historyLength == history.length) {
+            history = Arrays.copyOf(history, historyLength * 2);
+        }
+        history[historyLength++] = cell;
+    }
+
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    // 第index步，row*SIZE+col或PASS
+    public int getHistoryMove(int index) {
+        return history[index];
+    }
+
+    // 最近一步棋翻转的棋子位置，只有黑白棋会翻转棋子
+    public List<int[]> getLastFlipped() {
+        return Collections.emptyList();
+    }
 
     public int getGameId() {
         return gameId;
@@ -44,6 +137,15 @@ public abstract class Game {
 
     public void switchPlayer() {
         currentPlayer = (currentPlayer == player1) ? player2 : player1;
+        GameListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPlayerSwitched(this, currentPlayer);
+        }
+    }
+
+    // 由GameManager对它管理的对局设置；copy()得到的副本不继承
+    void setMeasured(boolean measured) {
+        this.measured = measured;
     }
 
     public boolean isOver() {
@@ -51,7 +153,60 @@ public abstract class Game {
     }
     
     public void setGameOver(boolean gameOver) {
+        boolean wasOver = this.gameOver;
         this.gameOver = gameOver;
+        if (gameOver && !wasOver) {
+            fireGameOver();
+        }
+    }
+
+    public synchronized void addListener(GameListener listener) {
+        GameListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+        grown[grown.length - 1] = listener;
+        listeners = grown;
+    }
+
+    public synchronized void removeListener(GameListener listener) {
+        GameListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                GameListener[] shrunk = new GameListener[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                listeners = shrunk;
+                return;
+            }
+        }
+    }
+
+    // 以下由各游戏的规则在修改对局时调用，没有监听者时只是一次空循环
+
+    protected void firePiecePlaced(int row, int col, Piece piece) {
+        GameListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPiecePlaced(this, row, col, piece);
+        }
+    }
+
+    protected void firePieceFlipped(int row, int col, Piece piece) {
+        GameListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPieceFlipped(this, row, col, piece);
+        }
+    }
+
+    protected void firePass(Piece piece) {
+        GameListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPass(this, piece);
+        }
+    }
+
+    protected void fireGameOver() {
+        GameListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onGameOver(this);
+        }
     }
     
     public Player getPlayer1() {
@@ -0,0 +1,408 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对局库分析：读入GameRecordWriter格式的对局记录，在多个线程上按规则重放，统计
+ * - 各游戏的对局数、黑胜/白胜/平局、平均手数和先手优势
+ * - 各开局（前几步）的胜率
+ * - 前几步内出现最多的局面
+ *
+ * 读线程只按行切分记录，每BATCH_SIZE条记录打成一批放入有界队列；工作线程各自解析、重放并
+ * 累加到自己的统计对象里，不共享任何可变状态，全部结束后再合并。队列有界，局面统计也只保留
+ * 出现最多的一部分局面（见TopPositions），内存占用与文件大小无关。任何一个工作线程出错时整个分析中止。
+ * 指定索引文件时，每一局途经的所有局面还会由各工作线程直接写入PositionIndex。
+ *
+ * 用法：java GameAnalyzer 文件|- [线程数] [开局步数] [局面统计的步数] [索引文件]
+ */
+public class GameAnalyzer {
+    private static final int BATCH_SIZE = 256;
+    private static final int TOP = 10;
+    private static final long INDEX_CAPACITY = 1L << 24; // 新建索引文件的槽数，512MB
+    private static final int POSITION_CAPACITY = 1 << 16; // 每个线程保留的局面数
+    private static final long PUT_TIMEOUT_MILLIS = 100; // 队列满时每隔这么久检查一次工作线程
+    private static final String END = new String("end"); // 结束标记，按引用比较
+
+    private final int threads;
+    private final int openingPlies;
+    private final int positionPlies;
+    private final PositionIndex index; // 可以为null
+
+    public GameAnalyzer(int threads, int openingPlies, int positionPlies, PositionIndex index) {
+        this.threads = threads;
+        this.openingPlies = openingPlies;
+        this.positionPlies = positionPlies;
+        this.index = index;
+    }
+
+    // 一组对局的胜负统计：对局数、黑胜、白胜、平局、总手数
+    static final class Outcomes {
+        long games;
+        long blackWins;
+        long whiteWins;
+        long draws;
+        long plies;
+
+        void add(String result, int length) {
+            games++;
+            plies += length;
+            if (result.equals("1-0")) {
+                blackWins++;
+            } else if (result.equals("0-1")) {
+                whiteWins++;
+            } else if (result.equals("1/2-1/2")) {
+                draws++;
+            }
+        }
+
+        void merge(Outcomes other) {
+            games += other.games;
+            blackWins += other.blackWins;
+            whiteWins += other.whiteWins;
+            draws += other.draws;
+            plies += other.plies;
+        }
+
+        // 黑方得分率，平局算半分
+        double blackScore() {
+            return games == 0 ? 0 : (blackWins + draws * 0.5) / games;
+        }
+    }
+
+    // 局面的键：游戏类型、黑子、白子和行棋方
+    static final class PositionKey {
+        final String type;
+        final long black;
+        final long white;
+        final boolean blackToMove;
+
+        PositionKey(String type, long black, long white, boolean blackToMove) {
+            this.type = type;
+            this.black = black;
+            this.white = white;
+            this.blackToMove = blackToMove;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PositionKey)) {
+                return false;
+            }
+            PositionKey other = (PositionKey) o;
+            return black == other.black && white == other.white
+                    && blackToMove == other.blackToMove && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, black, white, blackToMove);
+        }
+
+        // 类似FEN的写法：逐行列出，连续的空格用数字表示，B黑W白，最后是行棋方
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(type).append(' ');
+            for (int row = 0; row < Board.SIZE; row++) {
+                int empty = 0;
+                for (int col = 0; col < Board.SIZE; col++) {
+                    long bit = 1L << (row * Board.SIZE + col);
+                    char c = (black & bit) != 0 ? 'B' : (white & bit) != 0 ? 'W' : 0;
+                    if (c == 0) {
+                        empty++;
+                        continue;
+                    }
+                    if (empty > 0) {
+                        sb.append(empty);
+                        empty = 0;
+                    }
+                    sb.append(c);
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                }
+                sb.append(row == Board.SIZE - 1 ? ' ' : '/');
+            }
+            return sb.append(blackToMove ? 'b' : 'w').toString();
+        }
+    }
+
+    /**
+     * 出现次数最多的局面，近似统计（Space-Saving算法，成批淘汰）：最多保留2*capacity个局面，
+     * 超过时只留下次数最多的capacity个。被淘汰的局面再次出现时，按可能被淘汰掉的最大次数floor
+     * 补上，因此次数只会多算不会少算，多算的部分不超过记下的误差；从未被淘汰的常见局面误差为0。
+     */
+    static final class TopPositions {
+        private final int capacity;
+        private final Map<PositionKey, long[]> counts = new HashMap<>(); // 次数和误差
+        private long floor; // 被淘汰的局面的最大次数
+
+        TopPositions(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void add(PositionKey key) {
+            counts.computeIfAbsent(key, k -> new long[] {floor, floor})[0]++;
+            if (counts.size() > 2 * capacity) {
+                prune();
+            }
+        }
+
+        // 只留下次数最多的capacity个局面
+        private void prune() {
+            List<Map.Entry<PositionKey, long[]>> entries = sorted();
+            for (Map.Entry<PositionKey, long[]> e : entries.subList(capacity, entries.size())) {
+                floor = Math.max(floor, e.getValue()[0]);
+                counts.remove(e.getKey());
+            }
+        }
+
+        // 合并另一个线程的统计：一方没有的局面按该方的floor计入
+        void merge(TopPositions other) {
+            counts.forEach((key, v) -> {
+                if (!other.counts.containsKey(key)) {
+                    v[0] += other.floor;
+                    v[1] += other.floor;
+                }
+            });
+            other.counts.forEach((key, v) -> {
+                long[] entry = counts.computeIfAbsent(key, k -> new long[] {floor, floor});
+                entry[0] += v[0];
+                entry[1] += v[1];
+            });
+            floor += other.floor;
+            if (counts.size() > 2 * capacity) {
+                prune();
+            }
+        }
+
+        // 按确定出现过的次数（次数减误差）从多到少排列，值是{次数, 误差}
+        List<Map.Entry<PositionKey, long[]>> sorted() {
+            List<Map.Entry<PositionKey, long[]>> entries = new ArrayList<>(counts.entrySet());
+            entries.sort((a, b) -> Long.compare(b.getValue()[0] - b.getValue()[1], a.getValue()[0] - a.getValue()[1]));
+            return entries;
+        }
+    }
+
+    // 一个工作线程的统计结果，只由该线程修改
+    static final class Stats {
+        final Map<String, Outcomes> byType = new HashMap<>();
+        final Map<String, Outcomes> byOpening = new HashMap<>();
+        final TopPositions positions = new TopPositions(POSITION_CAPACITY);
+        long records;
+        long errors;
+
+        void merge(Stats other) {
+            records += other.records;
+            errors += other.errors;
+            other.byType.forEach((k, v) -> byType.computeIfAbsent(k, x -> new Outcomes()).merge(v));
+            other.byOpening.forEach((k, v) -> byOpening.computeIfAbsent(k, x -> new Outcomes()).merge(v));
+            positions.merge(other.positions);
+        }
+    }
+
+    private Stats analyze(BlockingQueue<String> queue) throws InterruptedException, IOException {
+        Stats stats = new Stats();
+        StringBuilder opening = new StringBuilder();
+        while (true) {
+            String batch = queue.take();
+            if (batch == END) {
+                queue.put(END); // 留给其他工作线程
+                return stats;
+            }
+            GameRecordReader reader = new GameRecordReader(new StringReader(batch));
+            while (reader.next()) {
+                stats.records++;
+                Game game = reader.replay();
+                if (game == null) {
+                    stats.errors++;
+                    continue;
+                }
+                String type = game.getGameType().toLowerCase();
+                String result = GameRecordWriter.resultOf(game);
+                int length = game.getHistoryLength();
+                stats.byType.computeIfAbsent(type, k -> new Outcomes()).add(result, length);
+
+                opening.setLength(0);
+                opening.append(type);
+                for (int i = 0; i < Math.min(openingPlies, length); i++) {
+                    int cell = game.getHistoryMove(i);
+                    opening.append(' ').append(cell == Game.PASS ? "pass"
+                            : SearchEngine.formatMove(cell / Board.SIZE, cell % Board.SIZE));
+                }
+                stats.byOpening.computeIfAbsent(opening.toString(), k -> new Outcomes()).add(result, length);
+
+                countPositions(game, type, result, stats);
+            }
+        }
+    }
+
+    // 从头重放前positionPlies步，统计途经的每个局面；有索引时重放全部着法，把每个局面和应着写入索引
+    private void countPositions(Game finished, String type, String result, Stats stats) {
+        Game game = GameManager.createGame(type, finished.getGameId());
+        Piece winner = winnerOf(result);
+        int plies = index != null ? finished.getHistoryLength() : Math.min(positionPlies, finished.getHistoryLength());
+        for (int i = 0; i < plies; i++) {
+            int cell = finished.getHistoryMove(i);
+            if (index != null) {
+                index.record(game, cell, winner);
+            }
+            if (cell == Game.PASS) {
+                ((ReversiGame) game).pass();
+            } else {
+                game.placePiece(cell / Board.SIZE, cell % Board.SIZE);
+            }
+            if (i >= positionPlies) {
+                continue;
+            }
+            Board board = game.getBoard();
+            PositionKey key = new PositionKey(type, board.toBitmask(Piece.BLACK), board.toBitmask(Piece.WHITE),
+                    game.getCurrentPlayer().getPiece() == Piece.BLACK);
+            stats.positions.add(key);
+        }
+    }
+
+    // 结果对应的胜方，平局为EMPTY，未结束为null
+    private static Piece winnerOf(String result) {
+        switch (result) {
+            case "1-0":
+                return Piece.BLACK;
+            case "0-1":
+                return Piece.WHITE;
+            case "1/2-1/2":
+                return Piece.EMPTY;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 分析in中的全部记录并返回合并后的统计。in由调用者关闭。
+     */
+    public Stats run(BufferedReader in) throws Exception {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(threads * 4);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Stats>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> analyze(queue)));
+            }
+
+            // 以'['开头、且上一行不是标签的行是新记录的开始，只在记录边界处切分批次
+            StringBuilder batch = new StringBuilder();
+            int recordsInBatch = 0;
+            boolean previousWasTag = false;
+            String line;
+            while ((line = in.readLine()) != null) {
+                boolean tag = line.startsWith("[");
+                if (tag && !previousWasTag) {
+                    if (recordsInBatch == BATCH_SIZE) {
+                        put(queue, batch.toString(), futures);
+                        batch.setLength(0);
+                        recordsInBatch = 0;
+                    }
+                    recordsInBatch++;
+                }
+                previousWasTag = tag;
+                batch.append(line).append('\n');
+            }
+            if (batch.length() > 0) {
+                put(queue, batch.toString(), futures);
+            }
+            put(queue, END, futures);
+
+            Stats total = new Stats();
+            for (Future<Stats> future : futures) {
+                total.merge(future.get());
+            }
+            return total;
+        } finally {
+            // 正常结束时工作线程都已退出；出错时中断还在等待队列的工作线程
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 把一批记录放入队列。工作线程在结束标记之前退出只可能是出错了，这时不再等待队列腾出空间，
+     * 而是抛出该线程的异常，否则工作线程全部出错后读线程会永远阻塞在满的队列上。
+     */
+    private static void put(BlockingQueue<String> queue, String batch, List<Future<Stats>> futures)
+            throws Exception {
+        do {
+            for (Future<Stats> future : futures) {
+                if (future.isDone()) {
+                    future.get(); // 抛出工作线程的异常
+                    throw new IllegalStateException("工作线程在结束前退出");
+                }
+            }
+        } while (!queue.offer(batch, PUT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    public static void report(Stats stats, double seconds) {
+        System.out.printf("记录: %d  出错: %d  用时: %.2fs  %.0f 条/秒%n",
+                stats.records, stats.errors, seconds, stats.records / seconds);
+
+        System.out.println();
+        System.out.println("游戏      对局数      黑胜      白胜      平局  平均手数  黑方得分率");
+        stats.byType.forEach((type, o) -> System.out.printf("%-8s %8d %9d %9d %9d %9.1f %10.1f%%%n",
+                type, o.games, o.blackWins, o.whiteWins, o.draws, (double) o.plies / o.games, o.blackScore() * 100));
+
+        System.out.println();
+        System.out.println("最常见的开局（黑方得分率）:");
+        List<Map.Entry<String, Outcomes>> openings = new ArrayList<>(stats.byOpening.entrySet());
+        openings.sort((a, b) -> Long.compare(b.getValue().games, a.getValue().games));
+        for (Map.Entry<String, Outcomes> e : openings.subList(0, Math.min(TOP, openings.size()))) {
+            Outcomes o = e.getValue();
+            System.out.printf("  %-32s %8d 局  %5.1f%%%n", e.getKey(), o.games, o.blackScore() * 100);
+        }
+
+        System.out.println();
+        System.out.println("最常见的局面:");
+        List<Map.Entry<PositionKey, long[]>> positions = stats.positions.sorted();
+        for (Map.Entry<PositionKey, long[]> e : positions.subList(0, Math.min(TOP, positions.size()))) {
+            long error = e.getValue()[1];
+            System.out.printf("  %8d  %s%s%n", e.getValue()[0], e.getKey(), error > 0 ? "  (多算不超过" + error + ")" : "");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("用法: java GameAnalyzer 文件|- [线程数] [开局步数] [局面统计的步数] [索引文件]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int openingPlies = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int positionPlies = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        PositionIndex index = args.length > 4 ? PositionIndex.open(Paths.get(args[4]), INDEX_CAPACITY) : null;
+
+        long start = System.nanoTime();
+        Stats stats;
+        try (BufferedReader in = args[0].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            stats = new GameAnalyzer(threads, openingPlies, positionPlies, index).run(in);
+        } finally {
+            if (index != null) {
+                index.close();
+            }
+        }
+        report(stats, (System.nanoTime() - start) / 1e9);
+        if (index != null) {
+            System.out.printf("%n索引: %d / %d 槽%n", index.size(), index.getCapacity());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * 对局事件的监听者，通过Game.addListener注册。渲染、统计、持久化等可以根据事件增量维护
+ * 自己的状态，而不必每次重新扫描棋盘。
+ *
+ * 每种事件是一个方法，参数都是基本类型或已有的对象，分发时不创建任何事件对象；
+ * 方法都有空的默认实现，只需覆盖关心的事件。回调在修改对局的线程上同步执行，
+ * 应当很快返回，也不能在回调中修改对局。Game.copy()得到的副本不带监听者，搜索试走不会触发事件。
+ */
+public interface GameListener {
+    // 在空格(row, col)放下piece
+    default void onPiecePlaced(Game game, int row, int col, Piece piece) {
+    }
+
+    // (row, col)的棋子被翻转为piece（只有黑白棋会翻转），每个被翻转的格子一次
+    default void onPieceFlipped(Game game, int row, int col, Piece piece) {
+    }
+
+    // 轮到current行棋
+    default void onPlayerSwitched(Game game, Player current) {
+    }
+
+    // piece一方pass，包括主动pass和无处落子时的自动pass
+    default void onPass(Game game, Piece piece) {
+    }
+
+    default void onGameOver(Game game) {
+    }
+}
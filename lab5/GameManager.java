@@ -4,14 +4,15 @@ import java.util.List;
 public class GameManager {
     private List<Game> games;
     private int currentGameIndex;
+    private final SpectatorHub spectatorHub = new SpectatorHub();
     
     public GameManager() {
         games = new ArrayList<>();
         
         // 初始化三个游戏
-        games.add(new PeaceGame(1)); // 游戏1: Peace模式
-        games.add(new ReversiGame(2)); // 游戏2: Reversi模式
-        games.add(new GomokuGame(3)); // 游戏3: Gomoku模式
+        addGame(new PeaceGame(1)); // 游戏1: Peace模式
+        addGame(new ReversiGame(2)); // 游戏2: Reversi模式
+        addGame(new GomokuGame(3)); // 游戏3: Gomoku模式
         
         // 确保默认进入模式1
         currentGameIndex = 0;
@@ -56,16 +57,30 @@ public class GameManager {
     
     public void addNewGame(String gameType) {
         // 创建新游戏并添加到游戏列表末尾
-        int newGameId = games.size() + 1;
+        Game game = createGame(gameType, games.size() + 1);
+        if (game != null) {
+            addGame(game);
+        }
+        // 切换到新添加的游戏
+        currentGameIndex = games.size() - 1;
+    }
+
+    // 管理的对局计入运行统计，搜索和重放中的对局不经过GameManager，不计入
+    private void addGame(Game game) {
+        game.setMeasured(true);
+        games.add(game);
+    }
+
+    // 按类型名创建游戏，不区分大小写；未知类型返回null
+    public static Game createGame(String gameType, int gameId) {
         if (gameType.equalsIgnoreCase("peace")) {
-            games.add(new PeaceGame(newGameId));
+            return new PeaceGame(gameId);
         } else if (gameType.equalsIgnoreCase("reversi")) {
-            games.add(new ReversiGame(newGameId));
+            return new ReversiGame(gameId);
         } else if (gameType.equalsIgnoreCase("gomoku")) {
-            games.add(new GomokuGame(newGameId));
+            return new GomokuGame(gameId);
         }
-        // 切换到新添加的游戏
-        currentGameIndex = games.size() - 1;
+        return null;
     }
     
     public boolean placePiece(int row, int col) {
@@ -73,7 +88,20 @@ public class GameManager {
         if (currentGame == null) {
             return false;
         }
-        return currentGame.placePiece(row, col);
+        Piece piece = currentGame.getCurrentPlayer().getPiece();
+        // JFR事件只记录真正走出的棋，搜索、perft和重放中的试走不经过这里
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        long start = Metrics.start();
+        boolean placed = currentGame.placePiece(row, col);
+        Metrics.record(Metrics.PLACE_PIECE, start);
+        commitMoveEvent(event, currentGame, row, col, placed);
+        if (!placed) {
+            return false;
+        }
+        Metrics.countMove(currentGame.getGameType());
+        spectatorHub.publish(currentGame, row, col, piece, currentGame.getLastFlipped());
+        return true;
     }
     
     public boolean pass() {
@@ -81,6 +109,48 @@ public class GameManager {
         if (currentGame == null || !(currentGame instanceof ReversiGame)) {
             return false;
         }
-        return ((ReversiGame) currentGame).pass();
+        Piece piece = currentGame.getCurrentPlayer().getPiece();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        boolean passed = ((ReversiGame) currentGame).pass();
+        commitMoveEvent(event, currentGame, -1, -1, passed);
+        if (!passed) {
+            return false;
+        }
+        spectatorHub.publish(currentGame, -1, -1, piece, currentGame.getLastFlipped());
+        return true;
+    }
+
+    // 结束并提交一步棋的JFR事件，pass的行列都是-1
+    private static void commitMoveEvent(MoveEvent event, Game game, int row, int col, boolean placed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameType = game.getGameType();
+            event.gameId = game.getGameId();
+            event.row = row;
+            event.col = col;
+            event.placed = placed;
+            event.flipped = placed ? game.getLastFlipped().size() : 0;
+            event.commit();
+        }
+    }
+
+    // 观战指定游戏，观战者会收到之后每一步棋的增量更新
+    public boolean watch(int gameId, Spectator spectator) {
+        for (Game game : games) {
+            if (game.getGameId() == gameId) {
+                spectatorHub.subscribe(gameId, spectator);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void unwatch(int gameId, Spectator spectator) {
+        spectatorHub.unsubscribe(gameId, spectator);
+    }
+
+    public SpectatorHub getSpectatorHub() {
+        return spectatorHub;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,368 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对局记录的流式读取端，格式见 GameRecordWriter。
+ *
+ * 一次只保留一条记录的标签，着法边读边交给对应的Game按规则重放，不保存着法列表，
+ * 所以读取任意大的文件都只占用固定的内存。用法：
+ *
+ * <pre>
+ * while (reader.next()) {
+ *     Game game = reader.replay();
+ *     if (game == null) { ... reader.getError() ... }
+ * }
+ * </pre>
+ *
+ * 与 CommandParser 一样，记录内容的错误通过返回值和 getError() 报告，不抛异常，
+ * 出错的记录被跳过，后面的记录照常读取；只有底层读取失败才抛出IOException。
+ * 兼容其他程序导出的记录：忽略着法编号（如 12.）、{...} 和 ; 开头的注释，
+ * 以及规则上多余的pass（ReversiGame在对方无处落子时已经自动pass）；其他位置的pass是错误。
+ */
+public class GameRecordReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TAGS = 32;
+    private static final int MAX_TAG_LENGTH = 256;
+    private static final int MAX_TOKEN_LENGTH = 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int line = 1;
+
+    private final Map<String, String> tags = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+    private final char[] token = new char[MAX_TOKEN_LENGTH];
+    private int tokenLength;
+    private int tokenLine;
+
+    private boolean movesPending; // 当前记录的着法还没有读
+    private int recordLine;
+    private long recordCount;
+    private String error;
+    private int redundantPassPly; // 已经接受过多余pass的手数
+
+    public GameRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * 读到下一条记录并解析它的标签，没有更多记录时返回false。
+     * 上一条记录的着法如果没有replay，会被直接跳过。
+     */
+    public boolean next() throws IOException {
+        if (movesPending) {
+            while (readToken()) {
+                // 跳过未重放的着法
+            }
+        }
+        tags.clear();
+        error = null;
+        skipWhitespaceAndComments();
+        if (peek() < 0) {
+            movesPending = false;
+            return false;
+        }
+        recordLine = line;
+        recordCount++;
+        while (peek() == '[') {
+            int tagLine = line;
+            if (!readTag()) {
+                fail(tagLine, "标签格式错误");
+            }
+            skipWhitespaceAndComments();
+        }
+        movesPending = true;
+        return true;
+    }
+
+    /**
+     * 按规则重放当前记录的着法，返回重放后的对局；记录有错误时返回null，原因见 getError()。
+     * 每条记录只能调用一次。
+     */
+    public Game replay() throws IOException {
+        if (!movesPending) {
+            throw new IllegalStateException("没有待重放的记录，先调用next()");
+        }
+        movesPending = false;
+        redundantPassPly = -1;
+        Game game = error == null ? newGame() : null;
+        while (readToken()) {
+            if (game != null && !applyToken(game)) {
+                game = null;
+            }
+        }
+        if (game != null && !checkResult(game)) {
+            game = null;
+        }
+        return game;
+    }
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // 当前记录开始的行号
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    // 目前读到的记录数，包括出错的记录
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    private Game newGame() {
+        String type = tags.get("Type");
+        if (type == null) {
+            return fail(recordLine, "缺少Type标签");
+        }
+        String size = tags.get("Size");
+        if (size != null && !size.equals(Integer.toString(Board.SIZE))) {
+            return fail(recordLine, "不支持的棋盘大小 " + size);
+        }
+        Game game = GameManager.createGame(type, (int) recordCount);
+        if (game == null) {
+            return fail(recordLine, "未知的游戏类型 " + type);
+        }
+        return game;
+    }
+
+    // 执行一个着法记号，出错时返回false
+    private boolean applyToken(Game game) {
+        if (isResult() || isMoveNumber()) {
+            return true;
+        }
+        if (tokenEquals("pass")) {
+            if (!(game instanceof ReversiGame)) {
+                return fail(tokenLine, game.getGameType() + " 不能pass") != null;
+            }
+            if (!((ReversiGame) game).pass()) {
+                if (!isRedundantPass(game)) {
+                    return fail(tokenLine, "当前一方有合法着法，不能pass") != null;
+                }
+                redundantPassPly = game.getHistoryLength();
+            }
+            return true;
+        }
+        int i = 0;
+        int row = 0;
+        while (i < tokenLength && token[i] >= '0' && token[i] <= '9' && row <= Board.SIZE) {
+            row = row * 10 + (token[i++] - '0');
+        }
+        int digits = i;
+        int col = 0;
+        while (i < tokenLength && Character.isLetter(token[i]) && col <= Board.SIZE) {
+            col = col * 26 + (Character.toUpperCase(token[i++]) - 'A' + 1);
+        }
+        if (digits == 0 || i == digits || i < tokenLength) {
+            return fail(tokenLine, "无法识别的着法 " + tokenText()) != null;
+        }
+        if (row < 1 || row > Board.SIZE || col < 1 || col > Board.SIZE || !game.placePiece(row - 1, col - 1)) {
+            return fail(tokenLine, "非法着法 " + tokenText()) != null;
+        }
+        return true;
+    }
+
+    /**
+     * 对方无处落子时ReversiGame已经自动pass，不记入着法，其他程序导出的记录可能把它写出来。
+     * 只有刚落完子的一方又轮到行棋时pass才是多余的，而且一次自动pass只能对应一个多余的pass。
+     */
+    private boolean isRedundantPass(Game game) {
+        int ply = game.getHistoryLength();
+        if (ply == 0 || ply == redundantPassPly) {
+            return false;
+        }
+        int cell = game.getHistoryMove(ply - 1);
+        return cell != Game.PASS
+                && game.getBoard().getPiece(cell / Board.SIZE, cell % Board.SIZE) == game.getCurrentPlayer().getPiece();
+    }
+
+    // 对局已经结束时，Result标签必须与重放的结果一致
+    private boolean checkResult(Game game) {
+        String result = tags.get("Result");
+        if (result == null || result.equals("*") || !game.isOver()) {
+            return true;
+        }
+        String actual = GameRecordWriter.resultOf(game);
+        if (!actual.equals(result)) {
+            return fail(recordLine, "Result为 " + result + "，重放的结果为 " + actual) != null;
+        }
+        return true;
+    }
+
+    private Game fail(int atLine, String message) {
+        if (error == null) {
+            error = "第" + atLine + "行: " + message;
+        }
+        return null;
+    }
+
+    // [Name "value"]，value中的\"和\\为转义
+    private boolean readTag() throws IOException {
+        read(); // '['
+        text.setLength(0);
+        while (isNameChar(peek()) && text.length() < MAX_TAG_LENGTH) {
+            text.append((char) read());
+        }
+        String name = text.toString();
+        skipSpaces();
+        if (name.isEmpty() || peek() != '"') {
+            skipLine();
+            return false;
+        }
+        read();
+        text.setLength(0);
+        int c;
+        while ((c = read()) >= 0 && c != '"' && c != '\n') {
+            if (c == '\\') {
+                c = read();
+            }
+            if (c < 0 || text.length() == MAX_TAG_LENGTH) {
+                skipLine();
+                return false;
+            }
+            text.append((char) c);
+        }
+        skipSpaces();
+        if (c != '"' || peek() != ']') {
+            skipLine();
+            return false;
+        }
+        read();
+        if (tags.size() < MAX_TAGS || tags.containsKey(name)) {
+            tags.put(name, text.toString());
+        }
+        return true;
+    }
+
+    /**
+     * 读下一个着法记号到token中；遇到下一条记录的'['或文件结尾时返回false。
+     * 超长的记号只保留前MAX_TOKEN_LENGTH个字符，之后会被当作无法识别的着法。
+     */
+    private boolean readToken() throws IOException {
+        skipWhitespaceAndComments();
+        int c = peek();
+        if (c < 0 || c == '[') {
+            return false;
+        }
+        tokenLine = line;
+        tokenLength = 0;
+        while ((c = peek()) >= 0 && !Character.isWhitespace(c) && c != '{' && c != ';' && c != '[') {
+            read();
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                token[tokenLength++] = (char) c;
+            }
+        }
+        if (tokenLength == 0) {
+            // 单独的'{'或';'已经作为注释处理，这里只可能是不成对的字符
+            read();
+        }
+        return true;
+    }
+
+    private boolean isResult() {
+        return tokenEquals("1-0") || tokenEquals("0-1") || tokenEquals("1/2-1/2") || tokenEquals("*");
+    }
+
+    // 12. 或 12... 形式的着法编号
+    private boolean isMoveNumber() {
+        int i = 0;
+        while (i < tokenLength && token[i] >= '0' && token[i] <= '9') {
+            i++;
+        }
+        if (i == 0 || i == tokenLength) {
+            return false;
+        }
+        while (i < tokenLength && token[i] == '.') {
+            i++;
+        }
+        return i == tokenLength;
+    }
+
+    private boolean tokenEquals(String word) {
+        if (tokenLength != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (Character.toLowerCase(token[i]) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String tokenText() {
+        return new String(token, 0, tokenLength);
+    }
+
+    private static boolean isNameChar(int c) {
+        return c >= 0 && (Character.isLetterOrDigit(c) || c == '_');
+    }
+
+    private void skipWhitespaceAndComments() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c >= 0 && Character.isWhitespace(c)) {
+                read();
+            } else if (c == '{') {
+                while ((c = read()) >= 0 && c != '}') {
+                    // 跳过注释
+                }
+            } else if (c == ';') {
+                skipLine();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (peek() == ' ' || peek() == '\t') {
+            read();
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != '\n') {
+            // 跳到行尾
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            position++;
+            if (c == '\n') {
+                line++;
+            }
+        }
+        return c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 对局记录的写出端，格式与PGN类似，每局一条记录：
+ *
+ * <pre>
+ * [Type "reversi"]
+ * [Size "8"]
+ * [Black "玩家1"]
+ * [White "玩家2"]
+ * [Result "1-0"]
+ *
+ * 4C 3C 3D pass ... 1-0
+ * </pre>
+ *
+ * 着法的写法与命令行相同（行号加列字母），主动pass写作pass，自动pass不写。
+ * 结果为 1-0（黑胜）、0-1（白胜）、1/2-1/2（平局）或 *（未结束），并在着法之后重复一次。
+ * 记录之间用空行分隔，直接写入底层Writer，不在内存中积累。
+ */
+public class GameRecordWriter implements Closeable, Flushable {
+    private static final int LINE_WIDTH = 80;
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(LINE_WIDTH + 16);
+
+    public GameRecordWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void write(Game game) throws IOException {
+        String result = resultOf(game);
+        writeTag("Type", game.getGameType().toLowerCase());
+        writeTag("Size", Integer.toString(Board.SIZE));
+        writeTag("Black", game.getPlayer1().getName());
+        writeTag("White", game.getPlayer2().getName());
+        writeTag("Result", result);
+        out.write('\n');
+
+        line.setLength(0);
+        for (int i = 0; i < game.getHistoryLength(); i++) {
+            int cell = game.getHistoryMove(i);
+            if (cell == Game.PASS) {
+                appendToken("pass");
+            } else {
+                appendToken(SearchEngine.formatMove(cell / Board.SIZE, cell % Board.SIZE));
+            }
+        }
+        appendToken(result);
+        out.append(line).write("\n\n");
+    }
+
+    // 1-0黑胜，0-1白胜，1/2-1/2平局，*未结束
+    public static String resultOf(Game game) {
+        if (!game.isOver()) {
+            return "*";
+        }
+        Player winner;
+        if (game instanceof ReversiGame) {
+            winner = ((ReversiGame) game).getWinner();
+        } else if (game instanceof GomokuGame) {
+            // 五子棋获胜时不切换玩家，当前玩家就是胜者
+            winner = ((GomokuGame) game).isDraw() ? null : game.getCurrentPlayer();
+        } else {
+            winner = null;
+        }
+        if (winner == null) {
+            return "1/2-1/2";
+        }
+        return winner.getPiece() == Piece.BLACK ? "1-0" : "0-1";
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c);
+        }
+        out.write("\"]\n");
+    }
+
+    // 着法按行折叠，每行不超过LINE_WIDTH个字符
+    private void appendToken(String token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE_WIDTH) {
+            out.append(line).write('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 对局记录的命令行工具：
+ * - java GameRecords export 文件 [对局数] [随机种子]：随机下完若干局黑白棋和五子棋并写出记录
+ * - java GameRecords import 文件：逐条重放记录，报告速度和出错的记录（文件为 - 时读标准输入）
+ */
+public class GameRecords {
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    public static void export(String file, int games, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (GameRecordWriter writer = new GameRecordWriter(new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(Paths.get(file)), StandardCharsets.UTF_8), 1 << 16))) {
+            for (int i = 0; i < games; i++) {
+                Game game = GameManager.createGame(i % 2 == 0 ? "reversi" : "gomoku", i + 1);
+                while (!game.isOver()) {
+                    List<int[]> moves = game.getValidMoves();
+                    if (moves.isEmpty()) {
+                        if (!(game instanceof ReversiGame) || !((ReversiGame) game).pass()) {
+                            break;
+                        }
+                    } else {
+                        int[] move = moves.get(random.nextInt(moves.size()));
+                        game.placePiece(move[0], move[1]);
+                    }
+                }
+                writer.write(game);
+            }
+        }
+    }
+
+    public static void importRecords(String file) throws IOException {
+        BufferedReader in = file.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        long moves = 0;
+        long errors = 0;
+        try (GameRecordReader reader = new GameRecordReader(in)) {
+            while (reader.next()) {
+                Game game = reader.replay();
+                if (game == null) {
+                    if (++errors <= MAX_REPORTED_ERRORS) {
+                        System.err.println("第" + reader.getRecordCount() + "条记录: " + reader.getError());
+                    }
+                } else {
+                    moves += game.getHistoryLength();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long records = reader.getRecordCount();
+            System.out.printf("记录: %d  出错: %d  着法: %d  用时: %.2fs  %.0f 局/秒  %.0f 步/秒%n",
+                    records, errors, moves, seconds, records / seconds, moves / seconds);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("export")) {
+            int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+            export(args[1], games, seed);
+        } else if (args.length >= 2 && args[0].equals("import")) {
+            importRecords(args[1]);
+        } else {
+            System.err.println("用法: java GameRecords export 文件 [对局数] [随机种子]");
+            System.err.println("      java GameRecords import 文件|-");
+        }
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 赛后逐步分析：对一局已下完的黑白棋或五子棋，从对局记录重建每一步之前的局面，
+ * 求出引擎的最佳着法，并与实际走出的着法在同样的深度上比较，得到每一步的评估损失，
+ * 损失超过阈值的标记为败着。
+ *
+ * 各个局面互不依赖，每个局面是ForkJoinPool上的一个任务，所有任务共用一张置换表：
+ * 相邻局面的搜索树大量重叠，一个局面的搜索结果会被前后几步直接复用。
+ * 整局的分析时间大约是（局面数 / 线程数）次单步搜索，而不是所有单步搜索时间之和。
+ */
+public class GameReview {
+    public static final int DEFAULT_DEPTH = 6;
+    // 分值限制在±DECISIVE_LOSSES个败着阈值内：普通局面的评估都在这个范围内，只有已分胜负的分值会被截断
+    private static final int DECISIVE_LOSSES = 20;
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable table; // 可以为null
+    private final int depth;
+    private final long budgetMillis; // 每个局面的时间预算，不大于0时只受深度限制
+
+    public GameReview(ForkJoinPool pool, TranspositionTable table, int depth, long budgetMillis) {
+        this.pool = pool;
+        this.table = table;
+        this.depth = depth;
+        this.budgetMillis = budgetMillis;
+    }
+
+    // 一步的分析结果；分值都以走这一步的一方的视角
+    public static final class MoveReport {
+        private final int ply;
+        private final Piece piece;
+        private final int played;     // row*SIZE+col或Game.PASS
+        private final SearchEngine.Result best; // 只能pass时为null
+        private final int playedScore;
+        private final int loss;
+        private final boolean blunder;
+        private final long elapsedNanos;
+
+        MoveReport(int ply, Piece piece, int played, SearchEngine.Result best, int playedScore, int loss,
+                   boolean blunder, long elapsedNanos) {
+            this.ply = ply;
+            this.piece = piece;
+            this.played = played;
+            this.best = best;
+            this.playedScore = playedScore;
+            this.loss = loss;
+            this.blunder = blunder;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getPly() {
+            return ply;
+        }
+
+        public Piece getPiece() {
+            return piece;
+        }
+
+        public String getPlayedText() {
+            return played == Game.PASS ? "pass" : SearchEngine.formatMove(played / Board.SIZE, played % Board.SIZE);
+        }
+
+        // 没有选择余地（只能pass）的一步不参与统计
+        public boolean isForced() {
+            return best == null;
+        }
+
+        public SearchEngine.Result getBest() {
+            return best;
+        }
+
+        public int getPlayedScore() {
+            return playedScore;
+        }
+
+        // 实际着法比最佳着法少的评估值，不小于0
+        public int getLoss() {
+            return loss;
+        }
+
+        public boolean isBlunder() {
+            return blunder;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * 分析game的全部着法，按步数顺序返回。game只被读取，可以是正在进行的对局的副本，
+     * 也可以是GameRecordReader重放得到的对局。
+     */
+    public List<MoveReport> review(Game game) throws Exception {
+        String type = game.getGameType().toLowerCase();
+        int threshold = blunderThreshold(game);
+        List<Callable<MoveReport>> tasks = new ArrayList<>();
+        Game position = GameManager.createGame(type, game.getGameId());
+        for (int i = 0; i < game.getHistoryLength(); i++) {
+            int ply = i;
+            int cell = game.getHistoryMove(i);
+            Game before = position.copy();
+            tasks.add(() -> analyze(before, ply, cell, threshold));
+            if (cell == Game.PASS) {
+                ((ReversiGame) position).pass();
+            } else {
+                position.placePiece(cell / Board.SIZE, cell % Board.SIZE);
+            }
+        }
+        if (table != null) {
+            table.newSearch(); // 整个分析是一代，各局面的搜索不再各自推进
+        }
+        List<MoveReport> reports = new ArrayList<>(tasks.size());
+        for (Future<MoveReport> future : pool.invokeAll(tasks)) {
+            reports.add(future.get());
+        }
+        return reports;
+    }
+
+    private MoveReport analyze(Game position, int ply, int cell, int threshold) {
+        long start = System.nanoTime();
+        Piece piece = position.getCurrentPlayer().getPiece();
+        if (position.getValidMoves().isEmpty()) {
+            return new MoveReport(ply, piece, cell, null, 0, 0, false, System.nanoTime() - start);
+        }
+        SearchEngine engine = new SearchEngine();
+        engine.setTranspositionTable(table);
+        engine.setSharedTable(true);
+        engine.setMaxDepth(depth);
+        SearchEngine.Result best = engine.search(position, budgetMillis, null);
+        int playedScore = best.getScore();
+        int bestCell = best.getRow() * Board.SIZE + best.getCol();
+        if (cell != bestCell) {
+            // 与最佳着法在同样的深度上比较，评估值才有可比性
+            playedScore = cell == Game.PASS ? engine.scoreMove(position, -1, -1, best.getDepth())
+                    : engine.scoreMove(position, cell / Board.SIZE, cell % Board.SIZE, best.getDepth());
+        }
+        // 已分胜负的分值封顶后再相减，否则错过一次杀棋的损失是WIN_SCORE量级，会淹没其他所有着法的损失
+        int cap = DECISIVE_LOSSES * threshold;
+        int loss = Math.max(0, clamp(best.getScore(), cap) - clamp(playedScore, cap));
+        return new MoveReport(ply, piece, cell, best, playedScore, loss, loss >= threshold,
+                System.nanoTime() - start);
+    }
+
+    // 把分值限制在[-cap, cap]内
+    private static int clamp(int score, int cap) {
+        return Math.max(-cap, Math.min(cap, score));
+    }
+
+    /**
+     * 败着的阈值：黑白棋用模式评估时是6子，用位置加权评估时约为丢掉半个角；
+     * 五子棋约为放过对方一个活三或错过自己的冲四。
+     */
+    static int blunderThreshold(Game game) {
+        if (game instanceof ReversiGame) {
+            return PatternEvaluator.getDefault() != null ? 6 * PatternEvaluator.SCALE : 50;
+        }
+        return 300;
+    }
+
+    // 逐步列出分析结果，最后是双方的平均损失和败着数
+    public static String format(List<MoveReport> reports) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%4s %4s %6s %6s %8s %8s %6s%n", "步数", "执子", "实际", "最佳", "评估", "损失", "深度"));
+        long[] losses = new long[2];
+        int[] moves = new int[2];
+        int[] blunders = new int[2];
+        for (MoveReport report : reports) {
+            sb.append(String.format("%4d %4s %6s", report.getPly() + 1, report.getPiece().getSymbol(),
+                    report.getPlayedText()));
+            if (report.isForced()) {
+                sb.append(String.format(" %6s%n", "（被迫）"));
+                continue;
+            }
+            SearchEngine.Result best = report.getBest();
+            sb.append(String.format(" %6s %8d %8d %6d%s%n", best.getMoveText(), best.getScore(), report.getLoss(),
+                    best.getDepth(), report.isBlunder() ? "  ?? 败着" : ""));
+            int side = report.getPiece() == Piece.BLACK ? 0 : 1;
+            losses[side] += report.getLoss();
+            moves[side]++;
+            blunders[side] += report.isBlunder() ? 1 : 0;
+        }
+        for (int side = 0; side < 2; side++) {
+            sb.append(String.format("%s 平均损失: %.1f  败着: %d%n", side == 0 ? Piece.BLACK.getSymbol()
+                    : Piece.WHITE.getSymbol(), moves[side] == 0 ? 0.0 : (double) losses[side] / moves[side],
+                    blunders[side]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 分析对局记录文件中的对局（文件为 - 时读标准输入）。
+     * 用法: java GameReview 文件|- [--depth=6] [--millis=0] [--threads=N] [--games=1] [--table-mb=64]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("用法: java GameReview 文件|- [--depth=6] [--millis=0] [--threads=N] [--games=1] [--table-mb=64]");
+            return;
+        }
+        int depth = DEFAULT_DEPTH;
+        long millis = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int games = 1;
+        long tableMegabytes = 64;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--depth=")) {
+                depth = Integer.parseInt(arg.substring("--depth=".length()));
+            } else if (arg.startsWith("--millis=")) {
+                millis = Long.parseLong(arg.substring("--millis=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--games=")) {
+                games = Integer.parseInt(arg.substring("--games=".length()));
+            } else if (arg.startsWith("--table-mb=")) {
+                tableMegabytes = Long.parseLong(arg.substring("--table-mb=".length()));
+            } else {
+                System.err.println("未知参数: " + arg);
+                return;
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        TranspositionTable table = tableMegabytes > 0
+                ? new TranspositionTable(tableMegabytes << 20, TranspositionTable.Replacement.TWO_TIER) : null;
+        GameReview reviewer = new GameReview(pool, table, depth, millis);
+        BufferedReader in = args[0].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+        try (GameRecordReader reader = new GameRecordReader(in)) {
+            int reviewed = 0;
+            while (reviewed < games && reader.next()) {
+                Game game = reader.replay();
+                if (game == null) {
+                    System.err.println("第" + reader.getRecordCount() + "条记录: " + reader.getError());
+                    continue;
+                }
+                if (game instanceof PeaceGame) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                List<MoveReport> reports = reviewer.review(game);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long searchNanos = 0;
+                for (MoveReport report : reports) {
+                    searchNanos += report.getElapsedNanos();
+                }
+                System.out.printf("第%d条记录 %s 游戏%d  %d步  用时 %.2fs（各局面分析时间之和 %.2fs，%d线程）%n",
+                        reader.getRecordCount(), game.getGameType(), game.getGameId(), reports.size(),
+                        seconds, searchNanos / 1e9, threads);
+                System.out.print(format(reports));
+                System.out.println();
+                reviewed++;
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
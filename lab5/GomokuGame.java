@@ -11,7 +11,7 @@ public class GomokuGame extends Game {
     }
 
     @Override
-    public boolean placePiece(int row, int col) {
+    protected boolean applyMove(int row, int col) {
         // 如果游戏已经结束，不允许落子
         if (gameOver) {
             return false;
@@ -26,6 +26,7 @@ public class GomokuGame extends Game {
         }
 
         board.setPiece(row, col, currentPlayer.getPiece());
+        firePiecePlaced(row, col, currentPlayer.getPiece());
         moveCount++;
         
         if (checkWin(row, col)) {
@@ -46,12 +47,12 @@ public class GomokuGame extends Game {
     }
 
     @Override
-    public boolean isGameOver() {
+    protected boolean checkGameOver() {
         return gameOver;
     }
 
     @Override
-    public List<int[]> getValidMoves() {
+    protected List<int[]> computeValidMoves() {
         List<int[]> validMoves = new ArrayList<>();
         for (int i = 0; i < Board.SIZE; i++) {
             for (int j = 0; j < Board.SIZE; j++) {
@@ -63,7 +64,17 @@ public class GomokuGame extends Game {
         return validMoves;
     }
 
-    private boolean checkWin(int row, int col) {
+    @Override
+    public GomokuGame copy() {
+        GomokuGame copy = new GomokuGame(gameId);
+        copyStateTo(copy);
+        copy.moveCount = moveCount;
+        copy.isDraw = isDraw;
+        return copy;
+    }
+
+    // 包内可见，供基准测试直接调用
+    boolean checkWin(int row, int col) {
         Piece currentPiece = currentPlayer.getPiece();
         
         // 检查水平方向
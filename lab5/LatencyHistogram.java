@@ -0,0 +1,108 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁直方图：每个2的幂区间再分成16个子区间，相对误差约6%，记录一次只需几次原子加法。
+ * 可以从任意线程并发记录。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+    private final String name;
+    private final boolean nanos; // true表示记录的是纳秒，输出时换算为微秒
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name, boolean nanos) {
+        this.name = name;
+        this.nanos = nanos;
+    }
+
+    public void recordValue(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) ((value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1));
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + mantissa;
+    }
+
+    // 区间的下界
+    private static long bucketValue(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int mantissa = index % SUB_COUNT;
+        return (long) (SUB_COUNT + mantissa) << (exponent - SUB_BITS);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // 第p（0到1）分位数的近似值
+    public long getPercentile(double p) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    // 输出一行文本：次数、平均值和各分位数
+    public void appendTo(StringBuilder out) {
+        double scale = nanos ? 1e3 : 1;
+        out.append(String.format("%-22s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", name, getCount(),
+                getMean() / scale, getPercentile(0.50) / scale, getPercentile(0.99) / scale,
+                getPercentile(0.999) / scale, getMax() / scale));
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 本地负载生成器：模拟大量客户端，每个客户端通过GameManager（与ChessGame相同的入口）
+ * 创建黑白棋和五子棋游戏，并随机选择合法落子直到对局结束。
+ * 统计吞吐量和单步落子延迟的 p50/p99/p999，不依赖任何外部服务。
+ *
+ * 用法：java LoadGenerator [客户端数] [每个客户端的对局数] [线程数] [随机种子]
+ */
+public class LoadGenerator {
+    private final int clients;
+    private final int gamesPerClient;
+    private final int threads;
+    private final long seed;
+
+    public LoadGenerator(int clients, int gamesPerClient, int threads, long seed) {
+        this.clients = clients;
+        this.gamesPerClient = gamesPerClient;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    // 单个工作线程的结果：落子延迟（纳秒）和完成的对局数
+    private static class WorkerResult {
+        private long[] latencies = new long[1024];
+        private int count = 0;
+        private int games = 0;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    // 模拟一个客户端：创建对局并随机落子直到结束
+    private static void runClient(int clientId, int games, long seed, WorkerResult result) {
+        Random random = new Random(seed + clientId);
+        GameManager gameManager = new GameManager();
+        for (int g = 0; g < games; g++) {
+            gameManager.addNewGame((clientId + g) % 2 == 0 ? "reversi" : "gomoku");
+            Game game = gameManager.getCurrentGame();
+            while (!game.isOver()) {
+                List<int[]> validMoves = game.getValidMoves();
+                long start;
+                if (validMoves.isEmpty()) {
+                    start = System.nanoTime();
+                    if (!gameManager.pass()) {
+                        break; // 非黑白棋且无处落子，对局无法继续
+                    }
+                } else {
+                    int[] move = validMoves.get(random.nextInt(validMoves.size()));
+                    start = System.nanoTime();
+                    gameManager.placePiece(move[0], move[1]);
+                }
+                result.record(System.nanoTime() - start);
+            }
+            result.games++;
+        }
+    }
+
+    // 运行一轮负载，返回每个线程的结果
+    private List<WorkerResult> runRound(int roundClients) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<WorkerResult>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int worker = t;
+                futures.add(executor.submit(() -> {
+                    WorkerResult result = new WorkerResult();
+                    // 客户端按线程交错分配
+                    for (int c = worker; c < roundClients; c += threads) {
+                        runClient(c, gamesPerClient, seed, result);
+                    }
+                    return result;
+                }));
+            }
+            List<WorkerResult> results = new ArrayList<>();
+            for (Future<WorkerResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void run() throws Exception {
+        // 预热一轮，让JIT编译完成后再计时
+        runRound(Math.max(1, clients / 10));
+
+        long start = System.nanoTime();
+        List<WorkerResult> results = runRound(clients);
+        long elapsed = System.nanoTime() - start;
+
+        int total = 0;
+        int games = 0;
+        for (WorkerResult result : results) {
+            total += result.count;
+            games += result.games;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (WorkerResult result : results) {
+            System.arraycopy(result.latencies, 0, all, offset, result.count);
+            offset += result.count;
+        }
+        Arrays.sort(all);
+
+        double seconds = elapsed / 1e9;
+        System.out.printf("客户端: %d  线程: %d  对局: %d  落子: %d  用时: %.2fs%n",
+                clients, threads, games, total, seconds);
+        System.out.printf("吞吐量: %.0f 步/秒  %.0f 局/秒%n", total / seconds, games / seconds);
+        System.out.printf("落子延迟(微秒): p50=%.2f  p99=%.2f  p999=%.2f  max=%.2f%n",
+                percentile(all, 0.50) / 1e3, percentile(all, 0.99) / 1e3,
+                percentile(all, 0.999) / 1e3, (total == 0 ? 0 : all[total - 1]) / 1e3);
+    }
+
+    // 已排序数组的百分位数（最近秩法）
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int gamesPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+        new LoadGenerator(clients, gamesPerClient, threads, seed).run();
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * 对局程序中的一方：给定局面返回要走的着法。与表示对局参与者的 Player 不同，
+ * MatchPlayer 只负责选着法，由 Tournament 这样的对局程序调用。
+ *
+ * 实例不要求线程安全，每局对局使用新的实例。
+ */
+public interface MatchPlayer {
+    // 显示用的名称，与创建时的描述相同
+    String getName();
+
+    /**
+     * 返回 {row, col}；无处落子（黑白棋需要pass）时返回null。调用时对局一定还没有结束。
+     */
+    int[] chooseMove(Game game);
+}
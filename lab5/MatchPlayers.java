@@ -0,0 +1,112 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按描述创建 MatchPlayer：
+ * - random：随机选一个合法着法
+ * - greedy：只看一步，选静态评估最好的着法
+ * - depth:N：固定深度N的alpha-beta搜索
+ * - search:毫秒：每步限时的迭代加深搜索
+ * 搜索玩家可以加上 @权重文件 指定黑白棋的模式评估（例如 depth:4@reversi.weights），
+ * @none 表示按位置加权评估，不加时使用启动时加载的权重。
+ */
+public final class MatchPlayers {
+    // 已加载的权重，按文件名缓存，所有对局共用
+    private static final Map<String, PatternEvaluator> WEIGHTS = new ConcurrentHashMap<>();
+
+    private MatchPlayers() {
+    }
+
+    /**
+     * @param seed 随机玩家使用的种子，相同的种子走出相同的对局
+     * @throws IllegalArgumentException 描述无法识别时
+     */
+    public static MatchPlayer create(String spec, long seed) {
+        if (spec.equals("random")) {
+            return new RandomPlayer(spec, seed);
+        }
+        int at = spec.indexOf('@');
+        String kind = at < 0 ? spec : spec.substring(0, at);
+        SearchPlayer player;
+        if (kind.equals("greedy")) {
+            player = new SearchPlayer(spec, 1, 0);
+        } else if (kind.startsWith("depth:")) {
+            player = new SearchPlayer(spec, Integer.parseInt(kind.substring("depth:".length())), 0);
+        } else if (kind.startsWith("search:")) {
+            player = new SearchPlayer(spec, 64, Long.parseLong(kind.substring("search:".length())));
+        } else {
+            throw new IllegalArgumentException("无法识别的玩家: " + spec);
+        }
+        if (at >= 0) {
+            String weights = spec.substring(at + 1);
+            player.engine.setPatternEvaluator(weights.equals("none") ? null : loadWeights(weights));
+        }
+        return player;
+    }
+
+    private static PatternEvaluator loadWeights(String file) {
+        return WEIGHTS.computeIfAbsent(file, f -> {
+            try {
+                return PatternEvaluator.load(Paths.get(f));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("无法读取评估权重 " + f + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // 检查描述是否有效，用于在开始对局之前报告错误
+    public static void validate(String spec) {
+        create(spec, 0);
+    }
+
+    private static final class RandomPlayer implements MatchPlayer {
+        private final String name;
+        private final Random random;
+
+        RandomPlayer(String name, long seed) {
+            this.name = name;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int[] chooseMove(Game game) {
+            List<int[]> moves = game.getValidMoves();
+            return moves.isEmpty() ? null : moves.get(random.nextInt(moves.size()));
+        }
+    }
+
+    private static final class SearchPlayer implements MatchPlayer {
+        private final String name;
+        private final SearchEngine engine = new SearchEngine();
+        private final long budgetMillis;
+
+        SearchPlayer(String name, int maxDepth, long budgetMillis) {
+            this.name = name;
+            this.budgetMillis = budgetMillis;
+            engine.setMaxDepth(maxDepth);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int[] chooseMove(Game game) {
+            SearchEngine.Result result = engine.search(game.copy(), budgetMillis, null);
+            if (result == null || result.isPass()) {
+                return null;
+            }
+            return new int[]{result.getRow(), result.getCol()};
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 运行统计：各操作的耗时直方图、各游戏类型的落子次数和每条命令分配的内存。
+ *
+ * 通过 -Dgame.metrics=true（或ChessGame的 --metrics 参数）开启。开关是static final常量，
+ * 关闭时 start()/record() 会被JIT当作死代码消除，不产生任何开销。
+ * 落子和走法生成只统计GameManager管理的对局，搜索、perft、赛后分析和重放中的对局不计入。
+ */
+public class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("game.metrics");
+
+    public static final LatencyHistogram PLACE_PIECE = new LatencyHistogram("placePiece", true);
+    public static final LatencyHistogram GET_VALID_MOVES = new LatencyHistogram("getValidMoves", true);
+    public static final LatencyHistogram IS_GAME_OVER = new LatencyHistogram("isGameOver", true);
+    public static final LatencyHistogram RENDER = new LatencyHistogram("render", true);
+    public static final LatencyHistogram COMMAND = new LatencyHistogram("command", true);
+    public static final LatencyHistogram COMMAND_ALLOCATION = new LatencyHistogram("command(字节)", false);
+
+    private static final LatencyHistogram[] HISTOGRAMS = {
+        PLACE_PIECE, GET_VALID_MOVES, IS_GAME_OVER, RENDER, COMMAND, COMMAND_ALLOCATION
+    };
+
+    private static final Map<String, LongAdder> MOVES = new ConcurrentHashMap<>();
+
+    // HotSpot提供的线程分配字节数，不支持时为null
+    private static final com.sun.management.ThreadMXBean THREADS = ENABLED ? threadBean() : null;
+
+    private Metrics() {
+    }
+
+    // 开始计时，关闭时返回0
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    // 记录从start开始经过的时间
+    public static void record(LatencyHistogram histogram, long start) {
+        if (ENABLED) {
+            histogram.recordValue(System.nanoTime() - start);
+        }
+    }
+
+    public static void countMove(String gameType) {
+        if (ENABLED) {
+            MOVES.computeIfAbsent(gameType, t -> new LongAdder()).increment();
+        }
+    }
+
+    // 当前线程累计分配的字节数，关闭或不支持时返回0
+    public static long allocatedBytes() {
+        if (!ENABLED || THREADS == null) {
+            return 0L;
+        }
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static void recordAllocation(LatencyHistogram histogram, long startBytes) {
+        if (ENABLED && THREADS != null) {
+            histogram.recordValue(allocatedBytes() - startBytes);
+        }
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        MOVES.clear();
+    }
+
+    // 以文本形式输出全部统计
+    public static String dump() {
+        if (!ENABLED) {
+            return "统计未开启，请使用 -Dgame.metrics=true 或 --metrics 启动。";
+        }
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-22s %10s %10s %10s %10s %10s %10s%n",
+                "名称(微秒)", "次数", "平均", "p50", "p99", "p999", "最大"));
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.appendTo(out);
+        }
+        out.append("落子次数:");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(MOVES).entrySet()) {
+            out.append(' ').append(entry.getKey()).append('=').append(entry.getValue().sum());
+        }
+        out.append('\n');
+        return out.toString();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.List;
+
+/**
+ * 一次落子（或pass）产生的增量更新，推送给观战者。
+ * 同一步棋只创建一个MoveDelta，所有观战者共享同一个实例，因此它是不可变的。
+ * 当观战者积压过多时，其队列会被合并为一个全量快照（snapshot不为null）。
+ */
+public class MoveDelta {
+    private final int gameId;
+    private final int row; // 落子行，pass或快照时为-1
+    private final int col; // 落子列，pass或快照时为-1
+    private final Piece piece; // 落子方的棋子
+    private final int[] flipped; // 被翻转的格子，按 row * Board.SIZE + col 编码
+    private final Piece nextPiece; // 下一步轮到的一方
+    private final int blackCount;
+    private final int whiteCount;
+    private final boolean gameOver;
+    private final Piece[][] snapshot; // 全量棋盘快照，仅在合并积压时使用
+
+    private MoveDelta(int gameId, int row, int col, Piece piece, int[] flipped, Piece nextPiece,
+                      int blackCount, int whiteCount, boolean gameOver, Piece[][] snapshot) {
+        this.gameId = gameId;
+        this.row = row;
+        this.col = col;
+        this.piece = piece;
+        this.flipped = flipped;
+        this.nextPiece = nextPiece;
+        this.blackCount = blackCount;
+        this.whiteCount = whiteCount;
+        this.gameOver = gameOver;
+        this.snapshot = snapshot;
+    }
+
+    // 根据游戏当前状态构建一步棋的增量，row/col为-1表示pass
+    public static MoveDelta ofMove(Game game, int row, int col, Piece piece, List<int[]> flippedPieces) {
+        int[] flipped = new int[flippedPieces.size()];
+        for (int i = 0; i < flipped.length; i++) {
+            int[] pos = flippedPieces.get(i);
+            flipped[i] = pos[0] * Board.SIZE + pos[1];
+        }
+        Board board = game.getBoard();
+        return new MoveDelta(game.getGameId(), row, col, piece, flipped,
+                game.getCurrentPlayer().getPiece(),
+                board.countPieces(Piece.BLACK), board.countPieces(Piece.WHITE),
+                game.isOver(), null);
+    }
+
+    // 构建全量快照，用于替换观战者积压的增量
+    public static MoveDelta ofSnapshot(Game game) {
+        Board board = game.getBoard();
+        Piece[][] cells = new Piece[Board.SIZE][Board.SIZE];
+        for (int i = 0; i < Board.SIZE; i++) {
+            for (int j = 0; j < Board.SIZE; j++) {
+                cells[i][j] = board.getPiece(i, j);
+            }
+        }
+        return new MoveDelta(game.getGameId(), -1, -1, null, new int[0],
+                game.getCurrentPlayer().getPiece(),
+                board.countPieces(Piece.BLACK), board.countPieces(Piece.WHITE),
+                game.isOver(), cells);
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public boolean isPass() {
+        return snapshot == null && row < 0;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot != null;
+    }
+
+    public Piece getPiece() {
+        return piece;
+    }
+
+    public int getFlippedCount() {
+        return flipped.length;
+    }
+
+    public int getFlippedRow(int index) {
+        return flipped[index] / Board.SIZE;
+    }
+
+    public int getFlippedCol(int index) {
+        return flipped[index] % Board.SIZE;
+    }
+
+    public Piece getNextPiece() {
+        return nextPiece;
+    }
+
+    public int getBlackCount() {
+        return blackCount;
+    }
+
+    public int getWhiteCount() {
+        return whiteCount;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public Piece getSnapshotPiece(int row, int col) {
+        return snapshot[row][col];
+    }
+}
@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：对局中真正走出的一步棋（GameManager.placePiece或pass，pass的行列都是-1），持续时间即落子耗时。
+ * 搜索、perft、赛后分析和对局重放中的试走直接调用Game.placePiece，不产生这个事件。
+ */
+@Name("fudanoop.Move")
+@Label("Move")
+@Category({"Game", "Engine"})
+@Description("一次落子或pass，包括规则检查、翻转和结束判断")
+@StackTrace(false)
+public class MoveEvent extends Event {
+    @Label("Game Type")
+    String gameType;
+
+    @Label("Game Id")
+    int gameId;
+
+    @Label("Row")
+    int row;
+
+    @Label("Column")
+    int col;
+
+    @Label("Placed")
+    boolean placed;
+
+    @Label("Pieces Flipped")
+    int flipped;
+}
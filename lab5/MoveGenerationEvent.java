@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：一次合法落子位置的计算（Game.getValidMoves）。
+ * 搜索时调用极其频繁，默认关闭，由 game.jfc 按阈值开启。
+ */
+@Name("fudanoop.MoveGeneration")
+@Label("Move Generation")
+@Category({"Game", "Engine"})
+@Description("计算当前玩家的全部合法落子位置")
+@Enabled(false)
+@StackTrace(false)
+public class MoveGenerationEvent extends Event {
+    @Label("Game Type")
+    String gameType;
+
+    @Label("Game Id")
+    int gameId;
+
+    @Label("Legal Moves")
+    int moves;
+}
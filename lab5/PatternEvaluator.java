@@ -0,0 +1,220 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 黑白棋的模式评估：把棋盘上的边、角、行和斜线各看成一个模式，每个格子是空、己方或对方，
+ * 一个模式的状态就是一个三进制数，直接查表得到它的权重，所有模式的权重相加就是评估值。
+ * 同一种模式在8种对称变换下的各个位置共用一张表；按棋子数把对局分成若干阶段，每个阶段一套权重。
+ *
+ * 评估值以行棋方的视角，单位是百分之一子（SCALE）。权重由PatternTrainer用自我对弈训练，
+ * 保存在gzip压缩的二进制文件中：魔数(8) 阶段数(4) 每阶段权重数(4) 之后是所有short权重。
+ *
+ * 启动时从 -Dgame.weights=文件（或ChessGame的 --weights 参数）加载，默认是当前目录的reversi.weights；
+ * 没有权重文件时SearchEngine仍使用按位置加权的评估。
+ */
+public final class PatternEvaluator {
+    public static final int SCALE = 100; // 一子对应的评估值
+    public static final String DEFAULT_FILE = "reversi.weights";
+    static final int STAGES = 12;
+
+    private static final long MAGIC = 0x5256504154303031L; // "RVPAT001"
+
+    // 每种模式在基本位置上的格子（row*8+col），其余位置由对称变换得到
+    private static final int[][] BASE_PATTERNS = {
+        cells(0, 0, 0, 1, 0, 2, 0, 3, 0, 4, 0, 5, 0, 6, 0, 7, 1, 1, 1, 6), // 边加两个X格
+        cells(0, 0, 0, 1, 0, 2, 1, 0, 1, 1, 1, 2, 2, 0, 2, 1, 2, 2),       // 角上3x3
+        cells(1, 0, 1, 1, 1, 2, 1, 3, 1, 4, 1, 5, 1, 6, 1, 7),             // 第二行
+        cells(2, 0, 2, 1, 2, 2, 2, 3, 2, 4, 2, 5, 2, 6, 2, 7),             // 第三行
+        cells(3, 0, 3, 1, 3, 2, 3, 3, 3, 4, 3, 5, 3, 6, 3, 7),             // 第四行
+        cells(0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7),             // 长对角线
+        cells(0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7),                   // 长度7~4的斜线
+        cells(0, 2, 1, 3, 2, 4, 3, 5, 4, 6, 5, 7),
+        cells(0, 3, 1, 4, 2, 5, 3, 6, 4, 7),
+        cells(0, 4, 1, 5, 2, 6, 3, 7)
+    };
+
+    static final int[][] INSTANCES;      // 每个模式实例的格子
+    static final int[] INSTANCE_OFFSET;  // 每个实例的权重表在一个阶段中的起始位置
+    static final int STAGE_WEIGHTS;      // 每个阶段的权重数
+
+    static {
+        List<int[]> instances = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        int offset = 0;
+        for (int[] base : BASE_PATTERNS) {
+            Set<String> seen = new HashSet<>();
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                int[] cells = new int[base.length];
+                for (int k = 0; k < base.length; k++) {
+                    cells[k] = transform(base[k], symmetry);
+                }
+                int[] sorted = cells.clone();
+                Arrays.sort(sorted);
+                // 格子集合相同（只是顺序不同）的变换只保留一个，否则同一组格子会被计算两次
+                if (seen.add(Arrays.toString(sorted))) {
+                    instances.add(cells);
+                    offsets.add(offset);
+                }
+            }
+            offset += power3(base.length);
+        }
+        INSTANCES = instances.toArray(new int[0][]);
+        INSTANCE_OFFSET = offsets.stream().mapToInt(Integer::intValue).toArray();
+        STAGE_WEIGHTS = offset;
+    }
+
+    private final short[] weights;
+
+    PatternEvaluator(short[] weights) {
+        if (weights.length != STAGES * STAGE_WEIGHTS) {
+            throw new IllegalArgumentException("权重数量不正确: " + weights.length);
+        }
+        this.weights = weights;
+    }
+
+    // 启动时加载的权重，没有权重文件时为null
+    public static PatternEvaluator getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        static final PatternEvaluator INSTANCE = loadDefault();
+
+        private static PatternEvaluator loadDefault() {
+            String configured = System.getProperty("game.weights");
+            Path path = Paths.get(configured != null ? configured : DEFAULT_FILE);
+            if (configured == null && !Files.exists(path)) {
+                return null;
+            }
+            try {
+                return load(path);
+            } catch (IOException e) {
+                System.err.println("无法读取评估权重 " + path + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    public static PatternEvaluator load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException("不是模式权重文件");
+            }
+            int stages = in.readInt();
+            int stageWeights = in.readInt();
+            if (stages != STAGES || stageWeights != STAGE_WEIGHTS) {
+                throw new IOException("权重文件的模式与程序不一致");
+            }
+            short[] weights = new short[STAGES * STAGE_WEIGHTS];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = in.readShort();
+            }
+            return new PatternEvaluator(weights);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(path))))) {
+            out.writeLong(MAGIC);
+            out.writeInt(STAGES);
+            out.writeInt(STAGE_WEIGHTS);
+            for (short weight : weights) {
+                out.writeShort(weight);
+            }
+        }
+    }
+
+    // 第index个权重，供训练时作为初始值
+    int weight(int index) {
+        return weights[index];
+    }
+
+    // 以当前行棋方的视角评估
+    public int evaluate(Game game) {
+        Board board = game.getBoard();
+        Piece mine = game.getCurrentPlayer().getPiece();
+        Piece opponent = mine == Piece.BLACK ? Piece.WHITE : Piece.BLACK;
+        return evaluate(board.toBitmask(mine), board.toBitmask(opponent));
+    }
+
+    public int evaluate(long mine, long opponent) {
+        int base = stage(mine | opponent) * STAGE_WEIGHTS;
+        int score = 0;
+        for (int i = 0; i < INSTANCES.length; i++) {
+            score += weights[base + INSTANCE_OFFSET[i] + index(INSTANCES[i], mine, opponent)];
+        }
+        return score;
+    }
+
+    // 棋子数4~64均匀分成STAGES个阶段
+    static int stage(long occupied) {
+        return (Long.bitCount(occupied) - 4) * STAGES / 61;
+    }
+
+    // 局面用到的每个权重在权重数组中的下标，写入features（长度为INSTANCES.length）
+    static void features(long mine, long opponent, int[] features) {
+        int base = stage(mine | opponent) * STAGE_WEIGHTS;
+        for (int i = 0; i < INSTANCES.length; i++) {
+            features[i] = base + INSTANCE_OFFSET[i] + index(INSTANCES[i], mine, opponent);
+        }
+    }
+
+    // 模式的三进制编号：空为0，己方为1，对方为2
+    private static int index(int[] cells, long mine, long opponent) {
+        int index = 0;
+        for (int cell : cells) {
+            int digit = (int) (mine >>> cell & 1) | (int) (opponent >>> cell & 1) << 1;
+            index = index * 3 + digit;
+        }
+        return index;
+    }
+
+    private static int[] cells(int... rowCols) {
+        int[] cells = new int[rowCols.length / 2];
+        for (int k = 0; k < cells.length; k++) {
+            cells[k] = rowCols[2 * k] * Board.SIZE + rowCols[2 * k + 1];
+        }
+        return cells;
+    }
+
+    // 8种对称变换：symmetry的第0位左右翻转，第1位上下翻转，第2位沿主对角线翻转
+    private static int transform(int cell, int symmetry) {
+        int row = cell / Board.SIZE;
+        int col = cell % Board.SIZE;
+        if ((symmetry & 1) != 0) {
+            col = Board.SIZE - 1 - col;
+        }
+        if ((symmetry & 2) != 0) {
+            row = Board.SIZE - 1 - row;
+        }
+        if ((symmetry & 4) != 0) {
+            int t = row;
+            row = col;
+            col = t;
+        }
+        return row * Board.SIZE + col;
+    }
+
+    private static int power3(int n) {
+        int result = 1;
+        for (int i = 0; i < n; i++) {
+            result *= 3;
+        }
+        return result;
+    }
+}
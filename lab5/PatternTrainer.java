@@ -0,0 +1,289 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 训练PatternEvaluator的权重：用所有CPU核心并行自我对弈生成对局，记录每个局面和对局结束时
+ * 行棋方的子数差，再用最小二乘回归拟合模式权重，使各模式权重之和接近最终的子数差。
+ *
+ * 训练分若干轮，第一轮用按位置加权的评估（或 --init 指定的权重）下棋，之后每轮用上一轮
+ * 训练出的权重下棋，生成的对局越来越接近强的下法。每局先随机走几步，保证开局各不相同。
+ *
+ * 拟合时每个线程负责一部分局面，累加各自的梯度，一轮结束后汇总更新；
+ * 每个权重的步长除以它出现的次数，很少出现的模式状态也能学到合适的值。
+ *
+ * 用法: java PatternTrainer 输出文件 [--games=N] [--rounds=N] [--epochs=N] [--depth=N]
+ *       [--opening-plies=N] [--threads=N] [--seed=N] [--init=权重文件]
+ */
+public final class PatternTrainer {
+    private static final double LEARNING_RATE = 0.04;
+    private static final double REGULARIZATION = 20; // L2正则，相当于每个权重多了这么多个目标为0的样本
+    private static final int GAMES_PER_TASK = 50;
+
+    private final int depth;
+    private final int openingPlies;
+    private final ExecutorService executor;
+    private final int threads;
+
+    // 训练数据：行棋方和对方的棋子、最终子数差（以行棋方的视角）
+    private long[] mine = new long[0];
+    private long[] opponent = new long[0];
+    private byte[] targets = new byte[0];
+    private int size;
+
+    public PatternTrainer(int depth, int openingPlies, int threads) {
+        this.depth = depth;
+        this.openingPlies = openingPlies;
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "pattern-trainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 自我对弈下games局，每局由种子seed+局号决定；局面加入训练数据，返回本轮的局面数
+    public int generate(PatternEvaluator patterns, int games, long seed) throws Exception {
+        List<Future<Positions>> futures = new ArrayList<>();
+        for (int first = 0; first < games; first += GAMES_PER_TASK) {
+            int from = first;
+            int to = Math.min(games, first + GAMES_PER_TASK);
+            futures.add(executor.submit(() -> {
+                Positions positions = new Positions();
+                SearchEngine engine = new SearchEngine();
+                engine.setMaxDepth(depth);
+                engine.setPatternEvaluator(patterns);
+                for (int i = from; i < to; i++) {
+                    playGame(engine, new Random(seed + i), positions);
+                }
+                return positions;
+            }));
+        }
+        int added = 0;
+        for (Future<Positions> future : futures) {
+            Positions positions = future.get();
+            append(positions);
+            added += positions.size;
+        }
+        return added;
+    }
+
+    private void playGame(SearchEngine engine, Random random, Positions positions) {
+        ReversiGame game = new ReversiGame(1);
+        int start = positions.size;
+        int plies = 0;
+        while (!game.isOver()) {
+            List<int[]> moves = game.getValidMoves();
+            if (moves.isEmpty()) {
+                game.pass();
+                continue;
+            }
+            Piece piece = game.getCurrentPlayer().getPiece();
+            positions.add(game.getBoard().toBitmask(piece), game.getBoard().toBitmask(SearchEngine.opponent(piece)),
+                    piece == Piece.BLACK);
+            int[] move;
+            if (plies < openingPlies) {
+                move = moves.get(random.nextInt(moves.size()));
+            } else {
+                SearchEngine.Result result = engine.search(game.copy(), 0, null);
+                move = new int[]{result.getRow(), result.getCol()};
+            }
+            game.placePiece(move[0], move[1]);
+            plies++;
+        }
+        int black = game.getBoard().countPieces(Piece.BLACK);
+        int white = game.getBoard().countPieces(Piece.WHITE);
+        // 结果在对局结束时才知道，补填这一局所有局面的目标值
+        for (int i = start; i < positions.size; i++) {
+            positions.targets[i] = (byte) (positions.blackToMove[i] ? black - white : white - black);
+        }
+    }
+
+    /**
+     * 用当前的训练数据拟合权重，每轮打印均方根误差（以子为单位）。
+     * @param initial 初始权重，为null时从0开始
+     */
+    public PatternEvaluator fit(PatternEvaluator initial, int epochs) throws Exception {
+        int featureCount = PatternEvaluator.INSTANCES.length;
+        float[] weights = new float[PatternEvaluator.STAGES * PatternEvaluator.STAGE_WEIGHTS];
+        if (initial != null) {
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = initial.weight(i);
+            }
+        }
+        int[] counts = new int[weights.length];
+        int[] features = new int[featureCount];
+        for (int p = 0; p < size; p++) {
+            PatternEvaluator.features(mine[p], opponent[p], features);
+            for (int feature : features) {
+                counts[feature]++;
+            }
+        }
+        int slice = (size + threads - 1) / threads;
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            List<Future<Gradient>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = Math.min(size, t * slice);
+                int to = Math.min(size, from + slice);
+                futures.add(executor.submit(() -> gradient(weights, from, to)));
+            }
+            float[] total = null;
+            double squaredError = 0;
+            for (Future<Gradient> future : futures) {
+                Gradient gradient = future.get();
+                squaredError += gradient.squaredError;
+                if (total == null) {
+                    total = gradient.sums;
+                } else {
+                    for (int i = 0; i < total.length; i++) {
+                        total[i] += gradient.sums[i];
+                    }
+                }
+            }
+            for (int i = 0; i < weights.length; i++) {
+                if (counts[i] > 0) {
+                    weights[i] += (float) (LEARNING_RATE * (total[i] - REGULARIZATION * weights[i])
+                            / (counts[i] + REGULARIZATION));
+                }
+            }
+            System.out.printf("  第%d遍  误差 %.3f 子%n", epoch,
+                    Math.sqrt(squaredError / Math.max(size, 1)) / PatternEvaluator.SCALE);
+        }
+        short[] rounded = new short[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            rounded[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(weights[i])));
+        }
+        return new PatternEvaluator(rounded);
+    }
+
+    // 局面[from, to)的误差对每个权重的梯度之和
+    private Gradient gradient(float[] weights, int from, int to) {
+        Gradient gradient = new Gradient(weights.length);
+        int[] features = new int[PatternEvaluator.INSTANCES.length];
+        for (int p = from; p < to; p++) {
+            PatternEvaluator.features(mine[p], opponent[p], features);
+            double predicted = 0;
+            for (int feature : features) {
+                predicted += weights[feature];
+            }
+            double error = targets[p] * PatternEvaluator.SCALE - predicted;
+            gradient.squaredError += error * error;
+            for (int feature : features) {
+                gradient.sums[feature] += (float) error;
+            }
+        }
+        return gradient;
+    }
+
+    private void append(Positions positions) {
+        int needed = size + positions.size;
+        if (needed > mine.length) {
+            int capacity = Math.max(needed, mine.length * 2);
+            mine = Arrays.copyOf(mine, capacity);
+            opponent = Arrays.copyOf(opponent, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+        }
+        System.arraycopy(positions.mine, 0, mine, size, positions.size);
+        System.arraycopy(positions.opponent, 0, opponent, size, positions.size);
+        System.arraycopy(positions.targets, 0, targets, size, positions.size);
+        size = needed;
+    }
+
+    public int getPositionCount() {
+        return size;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Gradient {
+        final float[] sums;
+        double squaredError;
+
+        Gradient(int length) {
+            sums = new float[length];
+        }
+    }
+
+    // 一个任务生成的局面，只由该任务的线程写入
+    private static final class Positions {
+        long[] mine = new long[1024];
+        long[] opponent = new long[1024];
+        byte[] targets = new byte[1024];
+        boolean[] blackToMove = new boolean[1024];
+        int size;
+
+        void add(long mineBits, long opponentBits, boolean black) {
+            if (size == mine.length) {
+                mine = Arrays.copyOf(mine, size * 2);
+                opponent = Arrays.copyOf(opponent, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                blackToMove = Arrays.copyOf(blackToMove, size * 2);
+            }
+            mine[size] = mineBits;
+            opponent[size] = opponentBits;
+            blackToMove[size] = black;
+            size++;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path output = null;
+        int games = 20000;
+        int rounds = 2;
+        int epochs = 50;
+        int depth = 2;
+        int openingPlies = 8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1L;
+        PatternEvaluator patterns = null;
+        for (String arg : args) {
+            if (arg.startsWith("--games=")) {
+                games = Integer.parseInt(arg.substring("--games=".length()));
+            } else if (arg.startsWith("--rounds=")) {
+                rounds = Integer.parseInt(arg.substring("--rounds=".length()));
+            } else if (arg.startsWith("--epochs=")) {
+                epochs = Integer.parseInt(arg.substring("--epochs=".length()));
+            } else if (arg.startsWith("--depth=")) {
+                depth = Integer.parseInt(arg.substring("--depth=".length()));
+            } else if (arg.startsWith("--opening-plies=")) {
+                openingPlies = Integer.parseInt(arg.substring("--opening-plies=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--init=")) {
+                patterns = PatternEvaluator.load(Paths.get(arg.substring("--init=".length())));
+            } else if (!arg.startsWith("--")) {
+                output = Paths.get(arg);
+            }
+        }
+        if (output == null) {
+            System.err.println("用法: java PatternTrainer 输出文件 [--games=N] [--rounds=N] [--epochs=N] [--depth=N] "
+                    + "[--opening-plies=N] [--threads=N] [--seed=N] [--init=权重文件]");
+            return;
+        }
+        PatternTrainer trainer = new PatternTrainer(depth, openingPlies, threads);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                long start = System.nanoTime();
+                int added = trainer.generate(patterns, games, seed + (long) round * games);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("第%d轮: %d 局  %d 个局面  用时 %.1fs  %.1f 局/秒  共 %d 个局面%n",
+                        round, games, added, seconds, games / seconds, trainer.getPositionCount());
+                patterns = trainer.fit(patterns, epochs);
+                patterns.save(output);
+            }
+        } finally {
+            trainer.shutdown();
+        }
+        System.out.println("权重已保存到 " + output);
+    }
+}
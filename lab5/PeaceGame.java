@@ -9,7 +9,7 @@ public class PeaceGame extends Game {
     }
 
     @Override
-    public boolean placePiece(int row, int col) {
+    protected boolean applyMove(int row, int col) {
         // 在Peace模式下，只要位置是空的，就可以放置棋子
         if (!board.isInBoard(row, col)) {
             return false;
@@ -20,6 +20,7 @@ public class PeaceGame extends Game {
         }
         
         board.setPiece(row, col, currentPlayer.getPiece());
+        firePiecePlaced(row, col, currentPlayer.getPiece());
         
         // 检查游戏是否结束
         if (isGameOver()) {
@@ -33,13 +34,20 @@ public class PeaceGame extends Game {
     }
 
     @Override
-    public boolean isGameOver() {
+    public PeaceGame copy() {
+        PeaceGame copy = new PeaceGame(gameId);
+        copyStateTo(copy);
+        return copy;
+    }
+
+    @Override
+    protected boolean checkGameOver() {
         // Peace模式下，棋盘满了就结束
         return board.isFull();
     }
 
     @Override
-    public List<int[]> getValidMoves() {
+    protected List<int[]> computeValidMoves() {
         // Peace模式下，所有空位都是合法的落子位置
         List<int[]> validMoves = new ArrayList<>();
         for (int i = 0; i < Board.SIZE; i++) {
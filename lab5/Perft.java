@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 黑白棋的perft：统计从初始局面出发N步后的叶子局面数，用来校验合法位置计算和翻转的正确性，
+ * 也可以作为落子速度的基准。
+ *
+ * 约定与常见的黑白棋perft一致：pass算一步；对局在N步之前结束时，终局局面算一个叶子。
+ * ReversiGame在对方无处落子时会在applyMove里自动pass，这里把这种情况展开成两步计数。
+ *
+ * 根节点的每个着法（以及前几层的子树）作为ForkJoin任务并行计算；
+ * 可选的置换表按（黑子、白子、行棋方、剩余深度）缓存子树的叶子数。
+ *
+ * 用法：java Perft [深度] [线程数] [置换表大小的二进制位数，0表示不用]
+ */
+public class Perft {
+    // 前几层拆成并行任务，更深的子树在一个任务里顺序计算
+    private static final int SPLIT_PLIES = 2;
+
+    // 初始局面的标准结果，用于校验
+    private static final long[] KNOWN = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L, 212258800L
+    };
+
+    private final AtomicReferenceArray<Entry> table;
+    private final int tableMask;
+    private final LongAdder hashHits = new LongAdder();
+
+    // 置换表项不可变，整体替换，多个线程读写时不会读到一半的数据
+    private static final class Entry {
+        final long black;
+        final long white;
+        final int sideAndDepth;
+        final long count;
+
+        Entry(long black, long white, int sideAndDepth, long count) {
+            this.black = black;
+            this.white = white;
+            this.sideAndDepth = sideAndDepth;
+            this.count = count;
+        }
+    }
+
+    // 一个根着法的结果
+    public static class RootCount {
+        private final String move;
+        private final long count;
+
+        RootCount(String move, long count) {
+            this.move = move;
+            this.count = count;
+        }
+
+        public String getMove() {
+            return move;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public Perft(int hashBits) {
+        if (hashBits > 0) {
+            table = new AtomicReferenceArray<>(1 << hashBits);
+            tableMask = (1 << hashBits) - 1;
+        } else {
+            table = null;
+            tableMask = 0;
+        }
+    }
+
+    public long getHashHits() {
+        return hashHits.sum();
+    }
+
+    /**
+     * 对root的每个着法分别统计depth步内的叶子数，按着法顺序返回。
+     */
+    public List<RootCount> divide(ReversiGame root, int depth, ForkJoinPool pool) {
+        List<RootCount> counts = new ArrayList<>();
+        if (depth <= 0 || root.isOver()) {
+            return counts;
+        }
+        List<int[]> moves = root.getValidMoves();
+        List<String> names = new ArrayList<>();
+        List<RecursiveTask<Long>> tasks = new ArrayList<>();
+        if (moves.isEmpty()) {
+            // 只在根节点可能出现：轮到的一方无处落子，唯一的着法是pass
+            ReversiGame child = root.copy();
+            child.pass();
+            names.add("pass");
+            tasks.add(new ChildTask(root.getCurrentPlayer().getPiece(), child, depth - 1, 1));
+        }
+        for (int[] move : moves) {
+            ReversiGame child = root.copy();
+            child.placePiece(move[0], move[1]);
+            names.add(SearchEngine.formatMove(move[0], move[1]));
+            tasks.add(new ChildTask(root.getCurrentPlayer().getPiece(), child, depth - 1, 1));
+        }
+        for (RecursiveTask<Long> task : tasks) {
+            pool.execute(task);
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            counts.add(new RootCount(names.get(i), tasks.get(i).join()));
+        }
+        return counts;
+    }
+
+    // mover刚走完一步得到child，还剩remaining步时child下的叶子数
+    private final class ChildTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Piece mover;
+        private final ReversiGame child;
+        private final int remaining;
+        private final int ply;
+
+        ChildTask(Piece mover, ReversiGame child, int remaining, int ply) {
+            this.mover = mover;
+            this.child = child;
+            this.remaining = remaining;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Long compute() {
+            int depth = remainingAfterPass(mover, child, remaining);
+            if (depth == 0) {
+                return 1L;
+            }
+            if (ply >= SPLIT_PLIES) {
+                return perft(child, depth);
+            }
+            Piece side = child.getCurrentPlayer().getPiece();
+            List<ChildTask> subtasks = new ArrayList<>();
+            for (int[] move : child.getValidMoves()) {
+                ReversiGame next = child.copy();
+                next.placePiece(move[0], move[1]);
+                subtasks.add(new ChildTask(side, next, depth - 1, ply + 1));
+            }
+            long total = 0;
+            for (ChildTask task : invokeAll(subtasks)) {
+                total += task.join();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * child还需要展开的步数；0表示child就是叶子（步数用完或对局已结束）。
+     * 如果child仍由mover行棋，说明对方被自动pass，这一个pass也算一步。
+     */
+    private static int remainingAfterPass(Piece mover, ReversiGame child, int remaining) {
+        if (remaining == 0 || child.isOver()) {
+            return 0;
+        }
+        if (child.getCurrentPlayer().getPiece() == mover) {
+            return remaining - 1;
+        }
+        return remaining;
+    }
+
+    // game未结束且depth大于0时，game下depth步的叶子数
+    private long perft(ReversiGame game, int depth) {
+        Board board = game.getBoard();
+        Piece side = game.getCurrentPlayer().getPiece();
+        long black = 0;
+        long white = 0;
+        int sideAndDepth = 0;
+        int index = 0;
+        if (table != null && depth > 1) {
+            black = board.toBitmask(Piece.BLACK);
+            white = board.toBitmask(Piece.WHITE);
+            sideAndDepth = depth << 1 | (side == Piece.BLACK ? 0 : 1);
+            index = index(black, white, sideAndDepth);
+            Entry entry = table.get(index);
+            if (entry != null && entry.black == black && entry.white == white && entry.sideAndDepth == sideAndDepth) {
+                hashHits.increment();
+                return entry.count;
+            }
+        }
+
+        long total = 0;
+        for (int[] move : game.getValidMoves()) {
+            ReversiGame child = game.copy();
+            child.placePiece(move[0], move[1]);
+            int remaining = remainingAfterPass(side, child, depth - 1);
+            total += remaining == 0 ? 1 : perft(child, remaining);
+        }
+
+        if (table != null && depth > 1) {
+            table.set(index, new Entry(black, white, sideAndDepth, total));
+        }
+        return total;
+    }
+
+    private int index(long black, long white, int sideAndDepth) {
+        long h = black * 0x9E3779B97F4A7C15L ^ white * 0xC2B2AE3D27D4EB4FL ^ sideAndDepth * 0x165667B19E3779F9L;
+        h ^= h >>> 31;
+        return (int) h & tableMask;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashBits = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Perft perft = new Perft(hashBits);
+        ReversiGame root = new ReversiGame(1);
+
+        long start = System.nanoTime();
+        List<RootCount> counts = perft.divide(root, depth, pool);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        long total = 0;
+        for (RootCount count : counts) {
+            System.out.printf("%-5s %,d%n", count.getMove(), count.getCount());
+            total += count.getCount();
+        }
+        if (depth == 0) {
+            total = 1;
+        }
+        double seconds = elapsed / 1e9;
+        System.out.printf("深度: %d  叶子数: %,d  用时: %.2fs  %,.0f 叶子/秒  线程: %d%n",
+                depth, total, seconds, total / Math.max(seconds, 1e-9), threads);
+        if (hashBits > 0) {
+            System.out.printf("置换表: %,d 项  命中: %,d%n", 1 << hashBits, perft.getHashHits());
+        }
+        if (depth < KNOWN.length) {
+            System.out.println(total == KNOWN[depth] ? "与标准结果一致" : "与标准结果不一致，应为 " + KNOWN[depth]);
+        }
+    }
+}
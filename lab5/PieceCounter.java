@@ -0,0 +1,37 @@
+/**
+ * 根据对局事件增量维护各种棋子的数量，取代每次显示时对整个棋盘的countPieces扫描。
+ * 只在attach时扫描一次棋盘，之后落子加一、翻转一加一减。
+ */
+public class PieceCounter implements GameListener {
+    private final int[] counts = new int[Piece.values().length];
+
+    private PieceCounter() {
+    }
+
+    // 按game的当前棋盘初始化，并注册为它的监听者
+    public static PieceCounter attach(Game game) {
+        PieceCounter counter = new PieceCounter();
+        Board board = game.getBoard();
+        for (Piece piece : Piece.values()) {
+            counter.counts[piece.ordinal()] = board.countPieces(piece);
+        }
+        game.addListener(counter);
+        return counter;
+    }
+
+    public int getCount(Piece piece) {
+        return counts[piece.ordinal()];
+    }
+
+    @Override
+    public void onPiecePlaced(Game game, int row, int col, Piece piece) {
+        counts[Piece.EMPTY.ordinal()]--;
+        counts[piece.ordinal()]++;
+    }
+
+    @Override
+    public void onPieceFlipped(Game game, int row, int col, Piece piece) {
+        counts[piece.ordinal()]++;
+        counts[(piece == Piece.BLACK ? Piece.WHITE : Piece.BLACK).ordinal()]--;
+    }
+}
@@ -1,6 +1,7 @@
 public class Player {
     private String name;
     private Piece piece;
+    private boolean computer = false; // 是否由电脑控制
 
     public Player(String name, Piece piece) {
         this.name = name;
@@ -14,4 +15,12 @@ public class Player {
     public Piece getPiece() {
         return piece;
     }
+
+    public boolean isComputer() {
+        return computer;
+    }
+
+    public void setComputer(boolean computer) {
+        this.computer = computer;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,420 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 局面统计索引：从局面到访问次数、胜/负/和次数和常用应着的持久化映射，保存在内存映射文件中，
+ * 数据不在Java堆上，条目数可以远大于堆的容量，也不会给GC带来负担。
+ *
+ * 局面先在棋盘的8种对称变换（旋转、翻转）中取最小的一种作为规范形式，再与游戏类型、行棋方
+ * 一起哈希成64位的键，所以对称的局面共享同一条统计。应着同样换算到规范形式下保存，查询时再换回来。
+ *
+ * 表是开放寻址的哈希表（线性探测），每个槽32字节：
+ *   键(8) 访问次数(4) 胜(4) 负(4) 和(4) 应着投票(4) 保留(4)
+ * 胜负和都是对该局面的行棋方而言。插入用CAS抢占空槽，计数用原子加，应着用CAS更新，
+ * 多个分析线程可以同时写入而不需要加锁。键为0表示空槽；64位哈希的碰撞概率忽略不计。
+ *
+ * 文件头占一页，之后按1GB分段映射（单个MappedByteBuffer不能超过2GB）。
+ */
+public final class PositionIndex implements Closeable {
+    private static final long MAGIC = 0x504F534E44583031L; // "POSNDX01"
+    private static final int HEADER_BYTES = 4096;
+    private static final int SLOT_BYTES = 32;
+    private static final int SEGMENT_SHIFT = 25; // 每段2^25个槽，即1GB
+    private static final int MAX_PROBES = 64;
+
+    // 槽内各字段的偏移
+    private static final int KEY = 0;
+    private static final int VISITS = 8;
+    private static final int WINS = 12;
+    private static final int LOSSES = 16;
+    private static final int DRAWS = 20;
+    private static final int REPLY = 24;
+
+    // 文件头中的字段
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SIZE = 16;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+    private final long mask;
+
+    // 一个局面的统计快照，应着已换算回查询局面的坐标
+    public static final class Entry {
+        private final int visits;
+        private final int wins;
+        private final int losses;
+        private final int draws;
+        private final int replyRow;
+        private final int replyCol;
+
+        Entry(int visits, int wins, int losses, int draws, int replyRow, int replyCol) {
+            this.visits = visits;
+            this.wins = wins;
+            this.losses = losses;
+            this.draws = draws;
+            this.replyRow = replyRow;
+            this.replyCol = replyCol;
+        }
+
+        public int getVisits() {
+            return visits;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getLosses() {
+            return losses;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        // 没有记录到应着时为-1
+        public int getReplyRow() {
+            return replyRow;
+        }
+
+        public int getReplyCol() {
+            return replyCol;
+        }
+
+        @Override
+        public String toString() {
+            String reply = replyRow < 0 ? "-" : replyRow == Board.SIZE ? "pass" : SearchEngine.formatMove(replyRow, replyCol);
+            return String.format("访问: %d  胜: %d  负: %d  和: %d  常用应着: %s", visits, wins, losses, draws, reply);
+        }
+    }
+
+    private PositionIndex(FileChannel channel, long capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        long segmentSlots = 1L << SEGMENT_SHIFT;
+        int count = (int) ((capacity + segmentSlots - 1) / segmentSlots);
+        this.segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long slots = Math.min(segmentSlots, capacity - i * segmentSlots);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + i * segmentSlots * SLOT_BYTES, slots * SLOT_BYTES);
+        }
+    }
+
+    /**
+     * 打开索引文件，不存在时按capacity（会向上取到2的幂）创建；已存在时沿用文件中的容量。
+     */
+    public static PositionIndex open(Path file, long capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() >= HEADER_BYTES) {
+                ByteBuffer existing = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                        .order(ByteOrder.nativeOrder());
+                if (existing.getLong(HEADER_MAGIC) != MAGIC) {
+                    throw new IOException("不是局面索引文件: " + file);
+                }
+                return new PositionIndex(channel, existing.getLong(HEADER_CAPACITY));
+            }
+            long slots = Long.highestOneBit(Math.max(capacity, 1024) - 1) << 1;
+            PositionIndex index = new PositionIndex(channel, slots);
+            LONGS.setVolatile(index.header, HEADER_CAPACITY, slots);
+            LONGS.setVolatile(index.header, HEADER_MAGIC, MAGIC);
+            return index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    // 已占用的槽数
+    public long size() {
+        return (long) LONGS.getVolatile(header, HEADER_SIZE);
+    }
+
+    /**
+     * 记录从position出发的一局：reply为在这个局面下实际走的着法（row*SIZE+col或Game.PASS），
+     * winner为这局的胜方，平局为Piece.EMPTY，未结束为null（只计访问次数）。
+     * 表已满（探测MAX_PROBES个槽仍找不到位置）时放弃这次记录并返回false。
+     */
+    public boolean record(Game position, int reply, Piece winner) {
+        Board board = position.getBoard();
+        long black = board.toBitmask(Piece.BLACK);
+        long white = board.toBitmask(Piece.WHITE);
+        int symmetry = canonicalSymmetry(black, white);
+        Piece side = position.getCurrentPlayer().getPiece();
+        long key = key(position.getGameType(), transform(black, symmetry), transform(white, symmetry), side);
+
+        long slot = findOrInsert(key);
+        if (slot < 0) {
+            return false;
+        }
+        MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+        int base = (int) (slot & ((1L << SEGMENT_SHIFT) - 1)) * SLOT_BYTES;
+        INTS.getAndAdd(segment, base + VISITS, 1);
+        int weight = 0;
+        if (winner == side) {
+            INTS.getAndAdd(segment, base + WINS, 1);
+            weight = 2;
+        } else if (winner == Piece.EMPTY) {
+            INTS.getAndAdd(segment, base + DRAWS, 1);
+            weight = 1;
+        } else if (winner != null) {
+            INTS.getAndAdd(segment, base + LOSSES, 1);
+        }
+        if (weight > 0) {
+            int cell = reply == Game.PASS ? Board.SIZE * Board.SIZE
+                    : Long.numberOfTrailingZeros(transform(1L << reply, symmetry));
+            vote(segment, base + REPLY, cell, weight);
+        }
+        return true;
+    }
+
+    /**
+     * 查询position的统计，没有记录时返回null。
+     */
+    public Entry lookup(Game position) {
+        Board board = position.getBoard();
+        long black = board.toBitmask(Piece.BLACK);
+        long white = board.toBitmask(Piece.WHITE);
+        int symmetry = canonicalSymmetry(black, white);
+        long key = key(position.getGameType(), transform(black, symmetry), transform(white, symmetry),
+                position.getCurrentPlayer().getPiece());
+
+        long index = key & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long slot = (index + probe) & mask;
+            MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+            int base = (int) (slot & ((1L << SEGMENT_SHIFT) - 1)) * SLOT_BYTES;
+            long current = (long) LONGS.getVolatile(segment, base + KEY);
+            if (current == 0) {
+                return null;
+            }
+            if (current == key) {
+                int vote = (int) INTS.getVolatile(segment, base + REPLY);
+                int cell = (vote >>> 24) - 1;
+                int row = -1;
+                int col = -1;
+                if (cell == Board.SIZE * Board.SIZE) {
+                    row = Board.SIZE; // pass
+                } else if (cell >= 0) {
+                    cell = Long.numberOfTrailingZeros(inverse(1L << cell, symmetry));
+                    row = cell / Board.SIZE;
+                    col = cell % Board.SIZE;
+                }
+                return new Entry((int) INTS.getVolatile(segment, base + VISITS),
+                        (int) INTS.getVolatile(segment, base + WINS),
+                        (int) INTS.getVolatile(segment, base + LOSSES),
+                        (int) INTS.getVolatile(segment, base + DRAWS), row, col);
+            }
+        }
+        return null;
+    }
+
+    // 找到key所在的槽，没有则用CAS占用一个空槽；失败返回-1
+    private long findOrInsert(long key) {
+        long index = key & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long slot = (index + probe) & mask;
+            MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+            int base = (int) (slot & ((1L << SEGMENT_SHIFT) - 1)) * SLOT_BYTES;
+            long current = (long) LONGS.getVolatile(segment, base + KEY);
+            if (current == 0) {
+                current = (long) LONGS.compareAndExchange(segment, base + KEY, 0L, key);
+                if (current == 0) {
+                    LONGS.getAndAdd(header, HEADER_SIZE, 1L);
+                    return slot;
+                }
+            }
+            if (current == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 应着的加权多数投票（Boyer-Moore）：高8位为候选着法+1，低24位为票数。
+     * 与候选相同则加票，不同则减票，减到0时换成新的着法。胜一局投2票，和一局投1票，
+     * 最后留下的是既常见、结果又好的应着，不需要为每个应着单独计数。
+     */
+    private static void vote(MappedByteBuffer segment, int offset, int cell, int weight) {
+        while (true) {
+            int current = (int) INTS.getVolatile(segment, offset);
+            int candidate = (current >>> 24) - 1;
+            int count = current & 0xFFFFFF;
+            int next;
+            if (candidate == cell) {
+                next = (cell + 1) << 24 | Math.min(count + weight, 0xFFFFFF);
+            } else if (count > weight) {
+                next = (candidate + 1) << 24 | (count - weight);
+            } else {
+                next = (cell + 1) << 24 | (weight - count);
+            }
+            if (current == next || INTS.compareAndSet(segment, offset, current, next)) {
+                return;
+            }
+        }
+    }
+
+    // 8种对称变换中使(黑, 白)最小的一种，按位表示：1上下翻转、2左右翻转、4沿主对角线转置
+    static int canonicalSymmetry(long black, long white) {
+        int best = 0;
+        long bestBlack = black;
+        long bestWhite = white;
+        for (int symmetry = 1; symmetry < 8; symmetry++) {
+            long b = transform(black, symmetry);
+            long w = transform(white, symmetry);
+            int cmp = Long.compareUnsigned(b, bestBlack);
+            if (cmp < 0 || (cmp == 0 && Long.compareUnsigned(w, bestWhite) < 0)) {
+                best = symmetry;
+                bestBlack = b;
+                bestWhite = w;
+            }
+        }
+        return best;
+    }
+
+    // 依次做上下翻转、左右翻转、转置
+    static long transform(long bits, int symmetry) {
+        if ((symmetry & 1) != 0) {
+            bits = flipVertical(bits);
+        }
+        if ((symmetry & 2) != 0) {
+            bits = mirrorHorizontal(bits);
+        }
+        if ((symmetry & 4) != 0) {
+            bits = transpose(bits);
+        }
+        return bits;
+    }
+
+    // transform的逆变换：每一步都是自身的逆，按相反的顺序做
+    static long inverse(long bits, int symmetry) {
+        if ((symmetry & 4) != 0) {
+            bits = transpose(bits);
+        }
+        if ((symmetry & 2) != 0) {
+            bits = mirrorHorizontal(bits);
+        }
+        if ((symmetry & 1) != 0) {
+            bits = flipVertical(bits);
+        }
+        return bits;
+    }
+
+    // 第row行在第row个字节，行的顺序反过来就是字节序反过来
+    private static long flipVertical(long bits) {
+        return Long.reverseBytes(bits);
+    }
+
+    // 每个字节内部的位顺序反过来
+    private static long mirrorHorizontal(long bits) {
+        bits = ((bits >>> 1) & 0x5555555555555555L) | ((bits & 0x5555555555555555L) << 1);
+        bits = ((bits >>> 2) & 0x3333333333333333L) | ((bits & 0x3333333333333333L) << 2);
+        bits = ((bits >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((bits & 0x0F0F0F0F0F0F0F0FL) << 4);
+        return bits;
+    }
+
+    // (row, col) 换到 (col, row)
+    private static long transpose(long bits) {
+        long t;
+        t = 0x0F0F0F0F00000000L & (bits ^ (bits << 28));
+        bits ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (bits ^ (bits << 14));
+        bits ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (bits ^ (bits << 7));
+        bits ^= t ^ (t >>> 7);
+        return bits;
+    }
+
+    private static long key(String gameType, long black, long white, Piece side) {
+        long h = mix(black ^ 0x9E3779B97F4A7C15L);
+        h = mix(h ^ white);
+        h = mix(h ^ gameType.toLowerCase().hashCode() ^ (side == Piece.BLACK ? 0 : 0x5555555555555555L));
+        return h == 0 ? 1 : h;
+    }
+
+    // SplitMix64的终结函数
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // 把修改写回文件
+    public void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * 查询一个局面：java PositionIndex 索引文件 游戏类型 [着法...]，着法从初始局面开始依次走。
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: java PositionIndex 索引文件 reversi|gomoku|peace [着法...]");
+            return;
+        }
+        Game game = GameManager.createGame(args[1], 1);
+        if (game == null) {
+            System.err.println("未知的游戏类型: " + args[1]);
+            return;
+        }
+        CommandParser parser = new CommandParser();
+        for (int i = 2; i < args.length; i++) {
+            boolean ok;
+            if (args[i].equalsIgnoreCase("pass")) {
+                ok = game instanceof ReversiGame && ((ReversiGame) game).pass();
+            } else {
+                ok = parser.parse(args[i]) && parser.getCount() == 1 && parser.getType(0) == CommandParser.MOVE
+                        && game.placePiece(parser.getRow(0), parser.getCol(0));
+            }
+            if (!ok) {
+                System.err.println("非法着法: " + args[i]);
+                return;
+            }
+        }
+        if (!Files.exists(Paths.get(args[0]))) {
+            System.err.println("索引文件不存在: " + args[0]);
+            return;
+        }
+        try (PositionIndex index = open(Paths.get(args[0]), 0)) {
+            long start = System.nanoTime();
+            Entry entry = index.lookup(game);
+            long elapsed = System.nanoTime() - start;
+            System.out.println(entry == null ? "没有这个局面的记录" : entry.toString());
+            System.out.printf("索引: %d / %d 槽  查询用时: %.1f 微秒%n", index.size(), index.getCapacity(), elapsed / 1e3);
+        }
+    }
+}
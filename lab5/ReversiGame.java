@@ -3,6 +3,8 @@ import java.util.List;
 
 public class ReversiGame extends Game {
     private boolean lastMoveWasPass = false;
+    // 最近一步棋翻转的棋子位置，供观战增量使用
+    private final List<int[]> lastFlipped = new ArrayList<>();
     
     // 方向数组，用于检查8个方向
     private static final int[][] DIRECTIONS = {
@@ -17,7 +19,7 @@ public class ReversiGame extends Game {
     }
 
     @Override
-    public boolean placePiece(int row, int col) {
+    protected boolean applyMove(int row, int col) {
         // 检查是否是合法的落子位置
         if (!isValidMove(row, col, currentPlayer.getPiece())) {
             return false;
@@ -25,6 +27,8 @@ public class ReversiGame extends Game {
         
         // 放置棋子
         board.setPiece(row, col, currentPlayer.getPiece());
+        firePiecePlaced(row, col, currentPlayer.getPiece());
+        lastFlipped.clear();
         
         // 翻转对手的棋子
         flipPieces(row, col);
@@ -45,6 +49,7 @@ public class ReversiGame extends Game {
         if (getValidMoves().isEmpty()) {
             // 如果没有合法落子位置，执行pass
             lastMoveWasPass = true;
+            firePass(currentPlayer.getPiece());
             switchPlayer(); // 切换回上一个玩家
             
             // 再次检查游戏是否结束（如果双方都没有合法落子位置）
@@ -56,15 +61,28 @@ public class ReversiGame extends Game {
         return true;
     }
     
+    @Override
+    public ReversiGame copy() {
+        ReversiGame copy = new ReversiGame(gameId);
+        copyStateTo(copy);
+        copy.lastMoveWasPass = lastMoveWasPass;
+        return copy;
+    }
+    
     public boolean pass() {
         // 只有当前玩家没有合法落子位置时才允许pass
         if (!getValidMoves().isEmpty()) {
             return false;
         }
         
+        lastFlipped.clear(); // pass没有翻转，不能留着上一步的翻转列表
+        recordMove(PASS);
+        firePass(currentPlayer.getPiece());
+        
         // 如果上一步也是pass，游戏结束
         if (lastMoveWasPass) {
             gameOver = true;
+            fireGameOver();
             return true;
         }
         
@@ -74,6 +92,7 @@ public class ReversiGame extends Game {
         // 检查下一个玩家是否有合法落子位置
         if (getValidMoves().isEmpty()) {
             gameOver = true;
+            fireGameOver();
         }
         
         return true;
@@ -104,7 +123,9 @@ public class ReversiGame extends Game {
             if (board.isInBoard(r, c) && board.getPiece(r, c) == currentPiece && !toFlip.isEmpty()) {
                 for (int[] pos : toFlip) {
                     board.setPiece(pos[0], pos[1], currentPiece);
+                    firePieceFlipped(pos[0], pos[1], currentPiece);
                 }
+                lastFlipped.addAll(toFlip);
             }
         }
     }
@@ -142,7 +163,7 @@ public class ReversiGame extends Game {
     }
 
     @Override
-    public boolean isGameOver() {
+    protected boolean checkGameOver() {
         // Reversi模式下，游戏结束条件：棋盘满或双方都无合法落子位置
         if (board.isFull()) {
             return true;
@@ -169,7 +190,7 @@ public class ReversiGame extends Game {
     }
 
     @Override
-    public List<int[]> getValidMoves() {
+    protected List<int[]> computeValidMoves() {
         List<int[]> validMoves = new ArrayList<>();
         Piece currentPiece = currentPlayer.getPiece();
         
@@ -185,6 +206,11 @@ public class ReversiGame extends Game {
         return validMoves;
     }
     
+    @Override
+    public List<int[]> getLastFlipped() {
+        return lastFlipped;
+    }
+    
     public int getScore(Player player) {
         return board.countPieces(player.getPiece());
     }
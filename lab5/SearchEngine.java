@@ -0,0 +1,492 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索引擎：在Game的副本上做迭代加深的alpha-beta（negamax）搜索。
+ * 每完成一层深度就通过Listener报告当前最佳着法，可以随时调用stop()取消，
+ * 或者在时间预算用完后自动停止；被打断的那一层结果会被丢弃。
+ *
+ * 一个SearchEngine实例同一时间只能被一个线程使用，stop()可以在其他线程调用。
+ * 可以设置一张置换表，多个线程上的SearchEngine可以共用同一张表。
+ * 黑白棋默认使用启动时加载的模式评估（PatternEvaluator），没有权重文件时按位置加权评估。
+ */
+public class SearchEngine {
+    public static final int WIN_SCORE = 100000; // 胜负分值，大于等于 WIN_SCORE - 1000 视为已分胜负
+    private static final int INFINITY = 1000000;
+    private static final int DEFAULT_MAX_DEPTH = 64;
+
+    // 黑白棋位置权重：角最好，角旁边的格子最差
+    private static final int[][] REVERSI_WEIGHTS = {
+        {100, -20, 10,  5,  5, 10, -20, 100},
+        {-20, -50, -2, -2, -2, -2, -50, -20},
+        { 10,  -2,  1,  1,  1,  1,  -2,  10},
+        {  5,  -2,  1,  0,  0,  1,  -2,   5},
+        {  5,  -2,  1,  0,  0,  1,  -2,   5},
+        { 10,  -2,  1,  1,  1,  1,  -2,  10},
+        {-20, -50, -2, -2, -2, -2, -50, -20},
+        {100, -20, 10,  5,  5, 10, -20, 100}
+    };
+
+    // 五子棋中一个五格窗口里有k个同色棋子（且没有对方棋子）时的分值
+    private static final int[] GOMOKU_WINDOW_SCORES = {0, 1, 8, 64, 512, 0};
+    private static final int[][] GOMOKU_DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    /**
+     * 搜索结果：最佳着法（pass时row和col为-1）、分值（以根节点行棋方的视角）、完成的深度和节点数。
+     */
+    public static class Result {
+        private final int row;
+        private final int col;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+        private final long elapsedNanos;
+
+        public Result(int row, int col, int score, int depth, long nodes, long elapsedNanos) {
+            this.row = row;
+            this.col = col;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCol() {
+            return col;
+        }
+
+        public boolean isPass() {
+            return row < 0;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // 每秒搜索的节点数
+        public long getNodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+        }
+
+        public String getMoveText() {
+            return isPass() ? "pass" : formatMove(row, col);
+        }
+    }
+
+    // 每完成一层搜索时回调
+    public interface Listener {
+        void onIteration(Result result);
+    }
+
+    private volatile boolean cancelled = false;
+    private volatile long externalDeadline = 0; // 外部设置的截止时间（System.nanoTime），0表示没有
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private long deadline;
+    private boolean timeLimited;
+    private boolean aborted;
+    private long nodes;
+    private TranspositionTable table; // 可以为null
+    private boolean sharedTable; // 为true时search不推进置换表的代
+    private PatternEvaluator patterns = PatternEvaluator.getDefault(); // 可以为null
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * 置换表是否由并行的多个搜索共用。共用时search不调用newSearch，由调用者在整批搜索开始时调用一次，
+     * 否则每个搜索的开始都会让其他仍在进行的搜索刚写入的表项显得过时。
+     */
+    public void setSharedTable(boolean sharedTable) {
+        this.sharedTable = sharedTable;
+    }
+
+    // 黑白棋使用的模式评估，null表示按位置加权评估
+    public void setPatternEvaluator(PatternEvaluator patterns) {
+        this.patterns = patterns;
+    }
+
+    // 取消搜索，可以在任意线程调用；取消后该实例不再继续搜索
+    public void stop() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 给正在进行（或即将开始）的搜索设置截止时间，可以在其他线程调用。
+     * 与search()的时间预算同时生效，以先到者为准；用于把无限时的后台思考转为限时搜索。
+     */
+    public void setDeadline(long deadlineNanos) {
+        externalDeadline = deadlineNanos;
+    }
+
+    /**
+     * 以root行棋方的视角，对着法(row, col)（row为-1表示pass）做depth层的全窗口搜索，
+     * 分值与search()完成同样深度时的分值可以直接比较。用于赛后分析中评估实际走出的着法。
+     */
+    public int scoreMove(Game root, int row, int col, int depth) {
+        timeLimited = false;
+        nodes = 0;
+        aborted = false;
+        Game child = root.copy();
+        if (row < 0) {
+            ((ReversiGame) child).pass();
+        } else {
+            child.placePiece(row, col);
+        }
+        return scoreChild(root, child, depth - 1, -INFINITY, INFINITY, 1);
+    }
+
+    // 是否已被取消或超时
+    private boolean shouldStop() {
+        if (cancelled) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long external = externalDeadline;
+        return (timeLimited && now >= deadline) || (external != 0 && now >= external);
+    }
+
+    /**
+     * 迭代加深搜索。budgetMillis不大于0时只受最大深度限制。
+     * 第一层总会完整搜索完，保证有着法可用；对局已结束时返回null。
+     */
+    public Result search(Game root, long budgetMillis, Listener listener) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        Result result = iterate(root, budgetMillis, listener);
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameType = root.getGameType();
+            event.gameId = root.getGameId();
+            event.interrupted = aborted || cancelled;
+            if (result != null) {
+                event.depth = result.getDepth();
+                event.nodes = result.getNodes();
+                event.nodesPerSecond = result.getNodesPerSecond();
+                event.bestMove = result.getMoveText();
+                event.score = result.getScore();
+            }
+            event.commit();
+        }
+        return result;
+    }
+
+    private Result iterate(Game root, long budgetMillis, Listener listener) {
+        long start = System.nanoTime();
+        timeLimited = budgetMillis > 0;
+        deadline = start + budgetMillis * 1_000_000L;
+        nodes = 0;
+        aborted = false;
+        if (table != null && !sharedTable) {
+            table.newSearch();
+        }
+
+        List<int[]> moves = orderedMoves(root);
+        if (root.isOver()) {
+            return null;
+        }
+        if (moves.isEmpty()) {
+            // 只有黑白棋会出现无处落子但未结束的情况，此时只能pass
+            return new Result(-1, -1, staticScore(root), 0, 0, System.nanoTime() - start);
+        }
+
+        Result best = null;
+        int[] bestMove = null;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int alpha = -INFINITY;
+            int[] iterationBest = null;
+            for (int[] move : moves) {
+                Game child = root.copy();
+                child.placePiece(move[0], move[1]);
+                int score = scoreChild(root, child, depth - 1, alpha, INFINITY, 1);
+                if (aborted) {
+                    break;
+                }
+                if (iterationBest == null || score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+            if (aborted) {
+                break;
+            }
+            bestMove = iterationBest;
+            best = new Result(bestMove[0], bestMove[1], alpha, depth, nodes, System.nanoTime() - start);
+            if (listener != null) {
+                listener.onIteration(best);
+            }
+            // 上一层的最佳着法在下一层最先搜索
+            moves.remove(bestMove);
+            moves.add(0, bestMove);
+            if (Math.abs(alpha) >= WIN_SCORE - 1000 || depth >= emptyCount(root) || shouldStop()) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    // 从parent行棋方的视角给child打分：如果child仍由同一方行棋（对方被迫pass或已获胜），分值不取反
+    private int scoreChild(Game parent, Game child, int depth, int alpha, int beta, int ply) {
+        if (child.getCurrentPlayer().getPiece() == parent.getCurrentPlayer().getPiece()) {
+            return negamax(child, depth, alpha, beta, ply);
+        }
+        return -negamax(child, depth, -beta, -alpha, ply);
+    }
+
+    // 以game当前行棋方的视角返回分值
+    private int negamax(Game game, int depth, int alpha, int beta, int ply) {
+        nodes++;
+        if ((nodes & 1023) == 0 && shouldStop()) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (game.isOver()) {
+            return terminalScore(game, ply);
+        }
+        if (depth <= 0) {
+            return staticScore(game);
+        }
+
+        long key = 0;
+        int tableMove = TranspositionTable.NO_MOVE;
+        if (table != null) {
+            key = TranspositionTable.key(game);
+            long entry = table.probe(key);
+            if (entry != 0) {
+                tableMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(game, TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        List<int[]> moves = orderedMoves(game);
+        if (moves.isEmpty()) {
+            if (game instanceof ReversiGame) {
+                ReversiGame child = (ReversiGame) game.copy();
+                child.pass();
+                return scoreChild(game, child, depth - 1, alpha, beta, ply + 1);
+            }
+            return staticScore(game);
+        }
+        if (tableMove >= 0) {
+            moveToFront(moves, tableMove);
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int[] bestMove = null;
+        for (int[] move : moves) {
+            Game child = game.copy();
+            child.placePiece(move[0], move[1]);
+            int score = scoreChild(game, child, depth - 1, alpha, beta, ply + 1);
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        if (table != null) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, depth, bound, toTable(game, best, ply), bestMove[0] * Board.SIZE + bestMove[1]);
+        }
+        return best;
+    }
+
+    // 把置换表给出的着法移到最前面先搜索
+    private static void moveToFront(List<int[]> moves, int cell) {
+        for (int i = 0; i < moves.size(); i++) {
+            int[] move = moves.get(i);
+            if (move[0] * Board.SIZE + move[1] == cell) {
+                moves.remove(i);
+                moves.add(0, move);
+                return;
+            }
+        }
+    }
+
+    // 五子棋的胜负分值与距根节点的步数有关，存入置换表时换成相对当前节点的值，取出时再换回来
+    private static int toTable(Game game, int score, int ply) {
+        if (game instanceof GomokuGame && Math.abs(score) >= WIN_SCORE - 1000) {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(Game game, int score, int ply) {
+        if (game instanceof GomokuGame && Math.abs(score) >= WIN_SCORE - 1000) {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
+    }
+
+    // 已结束对局的分值，以当前行棋方的视角；越早获胜分值越高
+    private static int terminalScore(Game game, int ply) {
+        Piece mine = game.getCurrentPlayer().getPiece();
+        if (game instanceof GomokuGame) {
+            // 五子棋获胜后不会切换玩家，当前玩家就是胜者
+            return ((GomokuGame) game).isDraw() ? 0 : WIN_SCORE - ply;
+        }
+        Board board = game.getBoard();
+        int diff = board.countPieces(mine) - board.countPieces(opponent(mine));
+        if (diff == 0) {
+            return 0;
+        }
+        return (diff > 0 ? WIN_SCORE : -WIN_SCORE) + diff;
+    }
+
+    private int staticScore(Game game) {
+        if (patterns != null && game instanceof ReversiGame) {
+            return patterns.evaluate(game);
+        }
+        return evaluate(game);
+    }
+
+    // 静态评估，以当前行棋方的视角
+    public static int evaluate(Game game) {
+        Piece mine = game.getCurrentPlayer().getPiece();
+        Board board = game.getBoard();
+        if (game instanceof ReversiGame) {
+            int score = 0;
+            for (int i = 0; i < Board.SIZE; i++) {
+                for (int j = 0; j < Board.SIZE; j++) {
+                    Piece piece = board.getPiece(i, j);
+                    if (piece == mine) {
+                        score += REVERSI_WEIGHTS[i][j];
+                    } else if (piece != Piece.EMPTY) {
+                        score -= REVERSI_WEIGHTS[i][j];
+                    }
+                }
+            }
+            return score;
+        }
+        if (game instanceof GomokuGame) {
+            return evaluateGomoku(board, mine);
+        }
+        return board.countPieces(mine) - board.countPieces(opponent(mine));
+    }
+
+    // 统计所有五格窗口：只含一方棋子的窗口按棋子数计分
+    private static int evaluateGomoku(Board board, Piece mine) {
+        int score = 0;
+        for (int[] dir : GOMOKU_DIRECTIONS) {
+            for (int i = 0; i < Board.SIZE; i++) {
+                for (int j = 0; j < Board.SIZE; j++) {
+                    int endRow = i + dir[0] * 4;
+                    int endCol = j + dir[1] * 4;
+                    if (!board.isInBoard(endRow, endCol)) {
+                        continue;
+                    }
+                    int mineCount = 0;
+                    int theirCount = 0;
+                    for (int k = 0; k < 5; k++) {
+                        Piece piece = board.getPiece(i + dir[0] * k, j + dir[1] * k);
+                        if (piece == mine) {
+                            mineCount++;
+                        } else if (piece != Piece.EMPTY) {
+                            theirCount++;
+                        }
+                    }
+                    if (theirCount == 0) {
+                        score += GOMOKU_WINDOW_SCORES[mineCount];
+                    } else if (mineCount == 0) {
+                        score -= GOMOKU_WINDOW_SCORES[theirCount];
+                    }
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * 候选着法并排序。黑白棋按位置权重排序；五子棋只考虑已有棋子周围两格内的空位，
+     * 空棋盘时只考虑中心。
+     */
+    private static List<int[]> orderedMoves(Game game) {
+        List<int[]> moves = game.getValidMoves();
+        if (game instanceof ReversiGame) {
+            moves.sort((a, b) -> REVERSI_WEIGHTS[b[0]][b[1]] - REVERSI_WEIGHTS[a[0]][a[1]]);
+            return moves;
+        }
+        if (game instanceof GomokuGame) {
+            Board board = game.getBoard();
+            List<int[]> nearby = new ArrayList<>();
+            for (int[] move : moves) {
+                if (hasNeighbor(board, move[0], move[1], 2)) {
+                    nearby.add(move);
+                }
+            }
+            if (nearby.isEmpty() && !moves.isEmpty()) {
+                nearby.add(new int[]{Board.SIZE / 2 - 1, Board.SIZE / 2 - 1});
+            }
+            return nearby;
+        }
+        return moves;
+    }
+
+    private static boolean hasNeighbor(Board board, int row, int col, int distance) {
+        for (int i = row - distance; i <= row + distance; i++) {
+            for (int j = col - distance; j <= col + distance; j++) {
+                if (board.isInBoard(i, j) && !board.isEmpty(i, j)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int emptyCount(Game game) {
+        return game.getBoard().countPieces(Piece.EMPTY);
+    }
+
+    static Piece opponent(Piece piece) {
+        return piece == Piece.BLACK ? Piece.WHITE : Piece.BLACK;
+    }
+
+    // 把坐标格式化为界面使用的形式，例如 (2, 3) -> 3D
+    public static String formatMove(int row, int col) {
+        return (row + 1) + String.valueOf((char) ('A' + col));
+    }
+}
@@ -0,0 +1,41 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：一次完整的迭代加深搜索（SearchEngine.search）。
+ */
+@Name("fudanoop.Search")
+@Label("Search")
+@Category({"Game", "Engine"})
+@Description("一次迭代加深搜索，包括完成的深度、节点数和每秒节点数")
+@StackTrace(false)
+public class SearchEvent extends Event {
+    @Label("Game Type")
+    String gameType;
+
+    @Label("Game Id")
+    int gameId;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Nodes Per Second")
+    long nodesPerSecond;
+
+    @Label("Best Move")
+    String bestMove;
+
+    @Label("Score")
+    int score;
+
+    @Label("Interrupted")
+    @Description("搜索因超时或被取消而没有完成最后一层")
+    boolean interrupted;
+}
@@ -0,0 +1,10 @@
+import java.util.List;
+
+/**
+ * 观战者接口。更新按批次送达，批次中的增量按落子顺序排列；
+ * 如果观战者处理太慢，积压的增量会被合并为一个快照（MoveDelta.isSnapshot()）。
+ * 回调在SpectatorHub的推送线程上执行，不会阻塞对局本身。
+ */
+public interface Spectator {
+    void onUpdates(List<MoveDelta> batch);
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 观战分发中心：每个游戏可以有任意多个观战者。
+ * 落子线程只负责把增量放入每个观战者自己的队列，真正的推送在后台线程池中进行，
+ * 每个观战者同一时间最多只有一个推送任务，按批次取走积压的增量。
+ * 队列超过上限时，积压的增量会被合并为一个全量快照，慢速观战者不会拖慢对局，也不会无限占用内存。
+ */
+public class SpectatorHub {
+    public static final int DEFAULT_MAX_PENDING = 64; // 每个观战者最多积压的增量数
+    public static final int DEFAULT_MAX_BATCH = 32; // 每次推送的最大批次
+
+    private final Map<Integer, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final int maxBatch;
+
+    public SpectatorHub() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_MAX_PENDING, DEFAULT_MAX_BATCH);
+    }
+
+    public SpectatorHub(int threads, int maxPending, int maxBatch) {
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "spectator-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxPending = maxPending;
+        this.maxBatch = maxBatch;
+    }
+
+    // 订阅指定游戏
+    public void subscribe(int gameId, Spectator spectator) {
+        subscriptions.computeIfAbsent(gameId, id -> new CopyOnWriteArrayList<>())
+                .add(new Subscription(spectator));
+    }
+
+    // 取消订阅
+    public void unsubscribe(int gameId, Spectator spectator) {
+        List<Subscription> list = subscriptions.get(gameId);
+        if (list != null) {
+            list.removeIf(s -> s.spectator == spectator);
+        }
+    }
+
+    public int getSpectatorCount(int gameId) {
+        List<Subscription> list = subscriptions.get(gameId);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * 发布一步棋。row/col为-1表示pass。
+     * 增量只创建一次并被所有观战者共享；快照只在有观战者积压溢出时才创建。
+     */
+    public void publish(Game game, int row, int col, Piece piece, List<int[]> flipped) {
+        List<Subscription> list = subscriptions.get(game.getGameId());
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        MoveDelta delta = MoveDelta.ofMove(game, row, col, piece, flipped);
+        MoveDelta snapshot = null;
+        for (Subscription subscription : list) {
+            boolean schedule;
+            synchronized (subscription) {
+                if (subscription.pending.size() >= maxPending) {
+                    // 积压过多：丢弃旧增量，用当前棋盘快照代替
+                    if (snapshot == null) {
+                        snapshot = MoveDelta.ofSnapshot(game);
+                    }
+                    subscription.pending.clear();
+                    subscription.pending.add(snapshot);
+                } else {
+                    subscription.pending.add(delta);
+                }
+                schedule = !subscription.scheduled;
+                subscription.scheduled = true;
+            }
+            if (schedule) {
+                executor.execute(subscription);
+            }
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 单个观战者的订阅，自身作为推送任务
+    private class Subscription implements Runnable {
+        private final Spectator spectator;
+        private final ArrayDeque<MoveDelta> pending = new ArrayDeque<>();
+        private boolean scheduled = false;
+
+        Subscription(Spectator spectator) {
+            this.spectator = spectator;
+        }
+
+        @Override
+        public void run() {
+            List<MoveDelta> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+                batch = new ArrayList<>(Math.min(pending.size(), maxBatch));
+                while (!pending.isEmpty() && batch.size() < maxBatch) {
+                    batch.add(pending.poll());
+                }
+            }
+            try {
+                spectator.onUpdates(batch);
+            } catch (RuntimeException e) {
+                // 观战者出错时直接移除，不影响其他观战者
+                for (List<Subscription> list : subscriptions.values()) {
+                    list.remove(this);
+                }
+                synchronized (this) {
+                    pending.clear();
+                    scheduled = false;
+                }
+                return;
+            }
+            boolean more;
+            synchronized (this) {
+                more = !pending.isEmpty();
+                scheduled = more;
+            }
+            if (more) {
+                // 还有积压时重新排队，让其他观战者也能轮到推送线程
+                executor.execute(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * 序贯概率比检验（SPRT），用于两个引擎的对局：每得到一对对局（同一开局双方各执黑一次）的结果就更新一次，
+ * 对数似然比越过上界时接受H1（elo1，新引擎更强），越过下界时接受H0（elo0），否则继续下。
+ *
+ * 一对对局的得分（0、0.5、1、1.5、2）按五种结果分别计数（五项分布），方差由实际结果估计，
+ * 对局成对进行时比按单局的三项分布更准确。似然比用正态近似（GSPRT）：
+ *   LLR = N * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance)
+ * 其中s0、s1为elo0、elo1对应的期望得分，mean和variance是每对对局平均每局得分的均值和方差。
+ * 每种结果的计数都加上半对的先验，确定性的引擎每对都下成1:1时方差也不会是0。
+ */
+public class Sprt {
+    public static final int CONTINUE = 0;
+    public static final int ACCEPT_H0 = 1;
+    public static final int ACCEPT_H1 = 2;
+    private static final double PRIOR = 0.5;
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+    // 一对对局得分为 k/2 的次数，k = 2*胜 + 和
+    private final long[] pairCounts = new long[5];
+
+    /**
+     * @param alpha 第一类错误率：实际为elo0却接受H1的概率
+     * @param beta  第二类错误率：实际为elo1却接受H0的概率
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    // 记录一对对局，wins和draws是待测引擎在这两局中的胜局数和和局数
+    public void addPair(int wins, int draws) {
+        pairCounts[2 * wins + draws]++;
+    }
+
+    public long getPairs() {
+        long n = 0;
+        for (long count : pairCounts) {
+            n += count;
+        }
+        return n;
+    }
+
+    public double llr() {
+        long pairs = getPairs();
+        if (pairs == 0) {
+            return 0;
+        }
+        double n = pairs + PRIOR * pairCounts.length;
+        double mean = 0;
+        for (int k = 0; k < pairCounts.length; k++) {
+            mean += (pairCounts[k] + PRIOR) * (k / 4.0);
+        }
+        mean /= n;
+        double variance = 0;
+        for (int k = 0; k < pairCounts.length; k++) {
+            double d = k / 4.0 - mean;
+            variance += (pairCounts[k] + PRIOR) * d * d;
+        }
+        variance /= n;
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return n * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance);
+    }
+
+    // CONTINUE、ACCEPT_H0或ACCEPT_H1
+    public int status() {
+        double llr = llr();
+        if (llr >= upperBound) {
+            return ACCEPT_H1;
+        }
+        if (llr <= lowerBound) {
+            return ACCEPT_H0;
+        }
+        return CONTINUE;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    // Elo差对应的期望得分
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    @Override
+    public String toString() {
+        int status = status();
+        String verdict = status == ACCEPT_H1 ? "接受H1" : status == ACCEPT_H0 ? "接受H0" : "未决";
+        return String.format("SPRT [%.1f, %.1f]  对局对: %d  LLR: %.3f [%.3f, %.3f]  %s",
+                elo0, elo1, getPairs(), llr(), lowerBound, upperBound, verdict);
+    }
+}
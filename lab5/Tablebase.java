@@ -0,0 +1,620 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 小棋盘黑白棋（4x4、6x6）的完美对局表：从初始局面出发穷举所有可以到达的局面，
+ * 求出双方都走最好时的终局子数差（以行棋方的视角）和最佳着法，保存在内存映射文件中，
+ * 查询只需要一次哈希查找。
+ *
+ * ReversiGame固定使用8x8的Board，这里用位棋盘（第row*n+col位）单独实现小棋盘的规则，
+ * 初始局面、行棋顺序和pass规则与ReversiGame相同。
+ *
+ * 局面先在8种对称变换中取键最小的一种作为规范形式，对称的局面只保存一次；键是每个格子
+ * （空0、行棋方1、对方2）组成的三进制数，6x6也只需要58位，键本身就是完整的局面。
+ * 表是开放寻址的哈希表，每个槽16字节：键(8) 数据(4) 保留(4)。
+ * 数据：分值+128(8位) 着法(8位，0表示终局、1表示pass、格子编号+2) 有效位。
+ * 生成时多个线程用CAS插入，求解过的局面对所有线程可见，表本身就是搜索的缓存。
+ *
+ * 4x4只有一万多个规范局面，不到一秒就能求完。6x6可以到达的局面数以万亿计，不剪枝的穷举需要的时间和磁盘空间
+ * 都超出了单机的范围，命令行只支持生成4x4的表；位棋盘的规则和文件格式本身对6x6同样适用。
+ */
+public final class Tablebase implements Closeable {
+    public static final int NOT_FOUND = -1;
+    public static final int NO_MOVE = -2; // 终局，没有着法
+
+    private static final long MAGIC = 0x534D4C5442303031L; // "SMLTB001"
+    private static final int HEADER_BYTES = 4096;
+    private static final int SLOT_BYTES = 16;
+    private static final int SEGMENT_SHIFT = 26; // 每段2^26个槽，即1GB
+    private static final int MAX_PROBES = 256;
+    private static final int SPLIT_PLIES = 4; // 前几步的每个分支都作为并行任务
+    private static final int VALID = 1 << 16;
+
+    // 文件头中的字段
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_SIZE = 8;
+    private static final int HEADER_CAPACITY = 16;
+    private static final int HEADER_COUNT = 24;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+    private final long mask;
+    private final int hashShift;
+    private final Geometry geometry;
+    private final LongAdder inserted = new LongAdder();
+
+    /**
+     * 一种棋盘大小的几何信息：每个格子在8个方向上的射线、8种对称变换、三进制键的查找表。
+     */
+    static final class Geometry {
+        private static final int[][] DIRECTIONS = {
+            {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+        };
+
+        final int size;
+        final int cells;
+        final long black; // 初始局面
+        final long white;
+        private final int[][][] rays;       // [格子][方向] 沿该方向的格子
+        private final int[][] transforms;   // [变换][格子] 变换后的格子
+        private final int[][] inverses;
+        private final long[] rowKeys;       // 一行的(行棋方位, 对方位)对应的三进制数
+        private final long[] rowWeights;    // 第r行的三进制数要乘的权
+
+        Geometry(int size) {
+            if (size != 4 && size != 6) {
+                throw new IllegalArgumentException("只支持4x4和6x6的棋盘: " + size);
+            }
+            this.size = size;
+            this.cells = size * size;
+            int half = size / 2;
+            white = bit(half - 1, half - 1) | bit(half, half);
+            black = bit(half - 1, half) | bit(half, half - 1);
+            rays = new int[cells][DIRECTIONS.length][];
+            for (int cell = 0; cell < cells; cell++) {
+                for (int d = 0; d < DIRECTIONS.length; d++) {
+                    int row = cell / size + DIRECTIONS[d][0];
+                    int col = cell % size + DIRECTIONS[d][1];
+                    int length = 0;
+                    int[] ray = new int[size];
+                    while (row >= 0 && row < size && col >= 0 && col < size) {
+                        ray[length++] = row * size + col;
+                        row += DIRECTIONS[d][0];
+                        col += DIRECTIONS[d][1];
+                    }
+                    rays[cell][d] = Arrays.copyOf(ray, length);
+                }
+            }
+            transforms = new int[8][cells];
+            inverses = new int[8][cells];
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                for (int cell = 0; cell < cells; cell++) {
+                    int row = cell / size;
+                    int col = cell % size;
+                    if ((symmetry & 1) != 0) {
+                        col = size - 1 - col;
+                    }
+                    if ((symmetry & 2) != 0) {
+                        row = size - 1 - row;
+                    }
+                    if ((symmetry & 4) != 0) {
+                        int t = row;
+                        row = col;
+                        col = t;
+                    }
+                    transforms[symmetry][cell] = row * size + col;
+                    inverses[symmetry][row * size + col] = cell;
+                }
+            }
+            rowKeys = new long[1 << (2 * size)];
+            for (int mine = 0; mine < (1 << size); mine++) {
+                for (int opponent = 0; opponent < (1 << size); opponent++) {
+                    if ((mine & opponent) != 0) {
+                        continue;
+                    }
+                    long key = 0;
+                    for (int col = size - 1; col >= 0; col--) {
+                        key = key * 3 + (mine >>> col & 1) + 2 * (opponent >>> col & 1);
+                    }
+                    rowKeys[mine << size | opponent] = key;
+                }
+            }
+            rowWeights = new long[size];
+            long weight = 1;
+            for (int row = 0; row < size; row++) {
+                rowWeights[row] = weight;
+                for (int col = 0; col < size; col++) {
+                    weight *= 3;
+                }
+            }
+        }
+
+        long bit(int row, int col) {
+            return 1L << (row * size + col);
+        }
+
+        // 在cell落子会翻转的对方棋子，0表示不能落子
+        long flips(long mine, long opponent, int cell) {
+            long flips = 0;
+            for (int[] ray : rays[cell]) {
+                long line = 0;
+                for (int next : ray) {
+                    long b = 1L << next;
+                    if ((opponent & b) != 0) {
+                        line |= b;
+                    } else {
+                        if ((mine & b) != 0) {
+                            flips |= line;
+                        }
+                        break;
+                    }
+                }
+            }
+            return flips;
+        }
+
+        long moves(long mine, long opponent) {
+            long empty = ~(mine | opponent) & ((1L << cells) - 1);
+            long moves = 0;
+            for (long rest = empty; rest != 0; rest &= rest - 1) {
+                int cell = Long.numberOfTrailingZeros(rest);
+                if (flips(mine, opponent, cell) != 0) {
+                    moves |= 1L << cell;
+                }
+            }
+            return moves;
+        }
+
+        long transform(long bits, int symmetry) {
+            long result = 0;
+            for (long rest = bits; rest != 0; rest &= rest - 1) {
+                result |= 1L << transforms[symmetry][Long.numberOfTrailingZeros(rest)];
+            }
+            return result;
+        }
+
+        int inverseCell(int cell, int symmetry) {
+            return inverses[symmetry][cell];
+        }
+
+        int transformCell(int cell, int symmetry) {
+            return transforms[symmetry][cell];
+        }
+
+        long key(long mine, long opponent) {
+            long rowMask = (1L << size) - 1;
+            long key = 0;
+            for (int row = 0; row < size; row++) {
+                int shift = row * size;
+                int index = (int) ((mine >>> shift & rowMask) << size | (opponent >>> shift & rowMask));
+                key += rowKeys[index] * rowWeights[row];
+            }
+            return key;
+        }
+
+        // 规范形式的键左移3位后加上所用的变换
+        long canonical(long mine, long opponent) {
+            long best = Long.MAX_VALUE;
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                long key = key(transform(mine, symmetry), transform(opponent, symmetry)) << 3 | symmetry;
+                if (key < best) {
+                    best = key;
+                }
+            }
+            return best;
+        }
+    }
+
+    private Tablebase(FileChannel channel, int size, long capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.hashShift = 64 - Long.numberOfTrailingZeros(capacity);
+        this.geometry = new Geometry(size);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        long segmentSlots = 1L << SEGMENT_SHIFT;
+        int count = (int) ((capacity + segmentSlots - 1) / segmentSlots);
+        this.segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long slots = Math.min(segmentSlots, capacity - i * segmentSlots);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + i * segmentSlots * SLOT_BYTES, slots * SLOT_BYTES);
+        }
+    }
+
+    // 打开已生成的表
+    public static Tablebase open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer existing = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.nativeOrder());
+            if (channel.size() < HEADER_BYTES || existing.getLong(HEADER_MAGIC) != MAGIC) {
+                throw new IOException("不是小棋盘完美对局表: " + file);
+            }
+            return new Tablebase(channel, existing.getInt(HEADER_SIZE), existing.getLong(HEADER_CAPACITY));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 用threads个线程生成size x size棋盘的完整表，写入file（已存在时覆盖）。
+     * @param capacity 槽数，向上取到2的幂；应当比局面数大一倍以上
+     */
+    public static Tablebase generate(int size, Path file, long capacity, int threads) throws IOException {
+        Files.deleteIfExists(file);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Tablebase table;
+        try {
+            long slots = Long.highestOneBit(Math.max(capacity, 1024) - 1) << 1;
+            table = new Tablebase(channel, size, slots);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        Geometry g = table.geometry;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(table.new SolveTask(g.black, g.white, 0));
+        } finally {
+            pool.shutdown();
+        }
+        INTS.setVolatile(table.header, HEADER_SIZE, size);
+        LONGS.setVolatile(table.header, HEADER_CAPACITY, table.capacity);
+        LONGS.setVolatile(table.header, HEADER_COUNT, table.inserted.sum());
+        LONGS.setVolatile(table.header, HEADER_MAGIC, MAGIC);
+        table.force();
+        return table;
+    }
+
+    // 前SPLIT_PLIES步的每个分支作为一个任务，之后在本线程中递归求解
+    private final class SolveTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final long mine;
+        private final long opponent;
+        private final int ply;
+
+        SolveTask(long mine, long opponent, int ply) {
+            this.mine = mine;
+            this.opponent = opponent;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (ply >= SPLIT_PLIES) {
+                return solve(mine, opponent);
+            }
+            int known = probe(mine, opponent);
+            if (known != NOT_FOUND) {
+                return value(known);
+            }
+            long moves = geometry.moves(mine, opponent);
+            if (moves == 0) {
+                return solve(mine, opponent);
+            }
+            SolveTask[] children = new SolveTask[Long.bitCount(moves)];
+            int[] cells = new int[children.length];
+            int n = 0;
+            for (long rest = moves; rest != 0; rest &= rest - 1) {
+                int cell = Long.numberOfTrailingZeros(rest);
+                long flips = geometry.flips(mine, opponent, cell);
+                cells[n] = cell;
+                children[n++] = new SolveTask(opponent & ~flips, mine | flips | 1L << cell, ply + 1);
+            }
+            invokeAll(children);
+            int best = Integer.MIN_VALUE;
+            int bestCell = 0;
+            for (int i = 0; i < children.length; i++) {
+                int value = -children[i].join();
+                if (value > best) {
+                    best = value;
+                    bestCell = cells[i];
+                }
+            }
+            store(mine, opponent, best, bestCell);
+            return best;
+        }
+    }
+
+    // 完整求解一个局面（不剪枝，所有后继局面都会进表），返回行棋方视角的终局子数差
+    private int solve(long mine, long opponent) {
+        int known = probe(mine, opponent);
+        if (known != NOT_FOUND) {
+            return value(known);
+        }
+        long moves = geometry.moves(mine, opponent);
+        int best;
+        int bestMove;
+        if (moves == 0) {
+            if (geometry.moves(opponent, mine) == 0) {
+                best = Long.bitCount(mine) - Long.bitCount(opponent);
+                bestMove = NO_MOVE;
+            } else {
+                best = -solve(opponent, mine);
+                bestMove = Game.PASS;
+            }
+        } else {
+            best = Integer.MIN_VALUE;
+            bestMove = NO_MOVE;
+            for (long rest = moves; rest != 0; rest &= rest - 1) {
+                int cell = Long.numberOfTrailingZeros(rest);
+                long flips = geometry.flips(mine, opponent, cell);
+                int value = -solve(opponent & ~flips, mine | flips | 1L << cell);
+                if (value > best) {
+                    best = value;
+                    bestMove = cell;
+                }
+            }
+        }
+        store(mine, opponent, best, bestMove);
+        return best;
+    }
+
+    /**
+     * 查找行棋方棋子为mine、对方为opponent的局面，返回的数据用value()和move()解码，
+     * 着法已换算回查询局面的坐标；表中没有时返回NOT_FOUND。
+     */
+    public int probe(long mine, long opponent) {
+        long canonical = geometry.canonical(mine, opponent);
+        long key = canonical >>> 3;
+        int symmetry = (int) (canonical & 7);
+        long slot = home(key);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+            int base = (int) (slot & ((1L << SEGMENT_SHIFT) - 1)) * SLOT_BYTES;
+            long current = (long) LONGS.getVolatile(segment, base);
+            if (current == 0) {
+                return NOT_FOUND;
+            }
+            if (current == key) {
+                int data = (int) INTS.getVolatile(segment, base + 8);
+                if (data == 0) {
+                    return NOT_FOUND; // 其他线程刚插入了键，还没有写入数据
+                }
+                int code = data >>> 8 & 0xFF;
+                if (code >= 2) {
+                    code = geometry.inverseCell(code - 2, symmetry) + 2;
+                }
+                return data & 0xFF | code << 8 | VALID;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    private void store(long mine, long opponent, int value, int move) {
+        long canonical = geometry.canonical(mine, opponent);
+        long key = canonical >>> 3;
+        int symmetry = (int) (canonical & 7);
+        int code = move == NO_MOVE ? 0 : move == Game.PASS ? 1 : geometry.transformCell(move, symmetry) + 2;
+        int data = (value + 128) | code << 8 | VALID;
+        long slot = home(key);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+            int base = (int) (slot & ((1L << SEGMENT_SHIFT) - 1)) * SLOT_BYTES;
+            long current = (long) LONGS.getVolatile(segment, base);
+            if (current == 0) {
+                if (LONGS.compareAndSet(segment, base, 0L, key)) {
+                    inserted.increment();
+                    current = key;
+                } else {
+                    current = (long) LONGS.getVolatile(segment, base);
+                }
+            }
+            if (current == key) {
+                // 同一局面被两个线程同时求解时写入的值相同
+                INTS.setVolatile(segment, base + 8, data);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new IllegalStateException("完美对局表已满，请增大容量");
+    }
+
+    // 键的起始槽：乘法哈希取乘积的高位
+    private long home(long key) {
+        return key * 0x9E3779B97F4A7C15L >>> hashShift;
+    }
+
+    // probe()结果中的分值：双方都走最好时行棋方最终多出的子数
+    public static int value(int entry) {
+        return (entry & 0xFF) - 128;
+    }
+
+    // probe()结果中的最佳着法：格子编号row*n+col、Game.PASS或NO_MOVE（对局已结束）
+    public static int move(int entry) {
+        int code = entry >>> 8 & 0xFF;
+        return code == 0 ? NO_MOVE : code == 1 ? Game.PASS : code - 2;
+    }
+
+    public int getSize() {
+        return geometry.size;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    // 表中的局面数（对称的局面只算一次）
+    public long getCount() {
+        return (long) LONGS.getVolatile(header, HEADER_COUNT);
+    }
+
+    // 初始局面的黑棋和白棋
+    public long initialBlack() {
+        return geometry.black;
+    }
+
+    public long initialWhite() {
+        return geometry.white;
+    }
+
+    // 行棋方的合法着法
+    public long moves(long mine, long opponent) {
+        return geometry.moves(mine, opponent);
+    }
+
+    // 行棋方在cell落子会翻转的棋子
+    public long flips(long mine, long opponent, int cell) {
+        return geometry.flips(mine, opponent, cell);
+    }
+
+    public void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * java Tablebase generate 4 文件 [--threads=N] [--capacity=槽数]
+     * java Tablebase query 文件 [着法...]    着法从初始局面开始依次走，输出局面的值和完美应对的变化
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("generate")) {
+            int size = Integer.parseInt(args[1]);
+            if (size != 4) {
+                // 6x6穷举既求不完，默认的表也要16GB的文件，不提供
+                System.err.println("只支持生成4x4的完美对局表，6x6可以到达的局面太多，无法穷举");
+                return;
+            }
+            int threads = Runtime.getRuntime().availableProcessors();
+            long capacity = 1L << 16;
+            for (int i = 3; i < args.length; i++) {
+                if (args[i].startsWith("--threads=")) {
+                    threads = Integer.parseInt(args[i].substring("--threads=".length()));
+                } else if (args[i].startsWith("--capacity=")) {
+                    capacity = Long.parseLong(args[i].substring("--capacity=".length()));
+                }
+            }
+            long start = System.nanoTime();
+            try (Tablebase table = generate(size, Paths.get(args[2]), capacity, threads)) {
+                double seconds = (System.nanoTime() - start) / 1e9;
+                int root = table.probe(table.initialBlack(), table.initialWhite());
+                System.out.printf("%dx%d: %d 个局面  %d 个槽  用时 %.1fs  初始局面的值: %+d%n",
+                        size, size, table.getCount(), table.getCapacity(), seconds, value(root));
+            } catch (IllegalStateException e) {
+                System.err.println(e.getMessage());
+            }
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("query")) {
+            try (Tablebase table = open(Paths.get(args[1]))) {
+                query(table, args);
+            }
+            return;
+        }
+        System.err.println("用法: java Tablebase generate 4 文件 [--threads=N] [--capacity=槽数]");
+        System.err.println("      java Tablebase query 文件 [着法...]");
+    }
+
+    private static void query(Tablebase table, String[] args) {
+        int size = table.getSize();
+        long mine = table.initialBlack();
+        long opponent = table.initialWhite();
+        boolean blackToMove = true;
+        CommandParser parser = new CommandParser();
+        for (int i = 2; i < args.length; i++) {
+            long moves = table.moves(mine, opponent);
+            if (args[i].equalsIgnoreCase("pass")) {
+                if (moves != 0 || table.moves(opponent, mine) == 0) {
+                    System.err.println("非法着法: " + args[i]);
+                    return;
+                }
+            } else {
+                boolean ok = parser.parse(args[i]) && parser.getCount() == 1
+                        && parser.getType(0) == CommandParser.MOVE
+                        && parser.getRow(0) < size && parser.getCol(0) < size
+                        && (moves >>> (parser.getRow(0) * size + parser.getCol(0)) & 1) != 0;
+                if (!ok) {
+                    System.err.println("非法着法: " + args[i]);
+                    return;
+                }
+                int cell = parser.getRow(0) * size + parser.getCol(0);
+                long flips = table.flips(mine, opponent, cell);
+                mine |= flips | 1L << cell;
+                opponent &= ~flips;
+            }
+            long t = mine;
+            mine = opponent;
+            opponent = t;
+            blackToMove = !blackToMove;
+        }
+        long start = System.nanoTime();
+        int entry = table.probe(mine, opponent);
+        long elapsed = System.nanoTime() - start;
+        if (entry == NOT_FOUND) {
+            System.out.println("表中没有这个局面");
+            return;
+        }
+        printBoard(size, blackToMove ? mine : opponent, blackToMove ? opponent : mine);
+        int value = value(entry);
+        System.out.printf("%s走，完美对局的结果: %s %+d  查询用时: %.1f 微秒%n", blackToMove ? "黑方" : "白方",
+                value > 0 ? "行棋方胜" : value < 0 ? "行棋方负" : "和棋", value, elapsed / 1e3);
+        // 沿着最佳着法走到终局
+        StringBuilder line = new StringBuilder("最佳变化:");
+        while (true) {
+            int move = move(table.probe(mine, opponent));
+            if (move == NO_MOVE) {
+                break;
+            }
+            if (move == Game.PASS) {
+                line.append(" pass");
+            } else {
+                line.append(' ').append(SearchEngine.formatMove(move / size, move % size));
+                long flips = table.flips(mine, opponent, move);
+                mine |= flips | 1L << move;
+                opponent &= ~flips;
+            }
+            long t = mine;
+            mine = opponent;
+            opponent = t;
+        }
+        System.out.println(line);
+    }
+
+    private static void printBoard(int size, long black, long white) {
+        StringBuilder out = new StringBuilder("  ");
+        for (int col = 0; col < size; col++) {
+            out.append((char) ('A' + col));
+        }
+        out.append('\n');
+        for (int row = 0; row < size; row++) {
+            out.append(row + 1).append(' ');
+            for (int col = 0; col < size; col++) {
+                long b = 1L << (row * size + col);
+                out.append((black & b) != 0 ? Piece.BLACK.getSymbol() : (white & b) != 0 ? Piece.WHITE.getSymbol() : "·");
+            }
+            out.append('\n');
+        }
+        System.out.print(out);
+    }
+}
@@ -0,0 +1,299 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 自我对弈比赛：若干个 MatchPlayer 两两对局，在所有CPU核上并行。
+ *
+ * 每组对手下 openings 个开局，每个开局先随机走 openingPlies 步，然后双方各执黑一次，
+ * 先手优势和开局的好坏在一对对局中相互抵消。每对对局是一个任务，完成后立即汇总，
+ * 最后报告每组对手的胜/和/负、得分率和Elo差的95%置信区间，以及每秒对局数。
+ *
+ * 用法：java Tournament reversi|gomoku 玩家1 玩家2 [玩家...] [--openings=N] [--threads=N]
+ *       [--opening-plies=N] [--seed=N] [--sprt=elo0,elo1[,alpha,beta]]
+ * 玩家的写法见 MatchPlayers，例如 random、greedy、depth:3、search:50。
+ *
+ * 指定 --sprt 时只能有两个玩家，检验第一个玩家相对第二个的Elo差：对局照常并行进行，
+ * 每完成一对就更新 Sprt，接受或拒绝假设后立即停止，openings 只是对局数的上限。
+ */
+public class Tournament {
+    private static final int SPRT_PROGRESS_PAIRS = 50;
+
+    private final String gameType;
+    private final List<String> players;
+    private final int openings;
+    private final int openingPlies;
+    private final int threads;
+    private final long seed;
+
+    public Tournament(String gameType, List<String> players, int openings, int openingPlies, int threads, long seed) {
+        this.gameType = gameType;
+        this.players = players;
+        this.openings = openings;
+        this.openingPlies = openingPlies;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    // 一组对手之间的累计结果，以first的视角
+    public static final class Standing {
+        private static final double PRIOR = 0.5;
+
+        final int first;
+        final int second;
+        int wins;
+        int draws;
+        int losses;
+        long plies;
+
+        Standing(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        public int games() {
+            return wins + draws + losses;
+        }
+
+        // 得分率，平局算半分
+        public double score() {
+            return games() == 0 ? 0.5 : (wins + draws * 0.5) / games();
+        }
+
+        /**
+         * 得分率的95%置信区间的半宽（正态近似）。与Sprt一样，胜、和、负各加半局的先验，
+         * 全胜或全负时方差也不会是0，样本少时区间相应地宽。
+         */
+        public double scoreMargin() {
+            int n = games();
+            if (n < 2) {
+                return 0.5;
+            }
+            double total = n + 3 * PRIOR;
+            double s = (wins + PRIOR + (draws + PRIOR) * 0.5) / total;
+            double variance = ((wins + PRIOR) * (1 - s) * (1 - s) + (draws + PRIOR) * (0.5 - s) * (0.5 - s)
+                    + (losses + PRIOR) * s * s) / total;
+            return 1.96 * Math.sqrt(variance / total);
+        }
+
+        void add(PairResult result) {
+            wins += result.wins;
+            draws += result.draws;
+            losses += result.losses;
+            plies += result.plies;
+        }
+    }
+
+    // 一个开局上双方各执黑一次的结果，以first的视角
+    public static final class PairResult {
+        final int standing;
+        int wins;
+        int draws;
+        int losses;
+        long plies;
+
+        PairResult(int standing) {
+            this.standing = standing;
+        }
+    }
+
+    // 得分率换算成Elo差
+    public static double elo(double score) {
+        double s = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / s - 1);
+    }
+
+    /**
+     * 运行全部对局，每完成一对对局调用一次 listener（在调用run的线程上），返回每组对手的结果。
+     * listener返回false时停止提交和等待剩余的对局。
+     */
+    public List<Standing> run(ResultListener listener) throws Exception {
+        List<Standing> standings = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            for (int j = i + 1; j < players.size(); j++) {
+                standings.add(new Standing(i, j));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<PairResult> completion = new ExecutorCompletionService<>(executor);
+            int submitted = 0;
+            for (int k = 0; k < openings; k++) {
+                for (int s = 0; s < standings.size(); s++) {
+                    final int standing = s;
+                    final long taskSeed = seed * 1_000_003L + (long) k * standings.size() + s;
+                    completion.submit(() -> playPair(standings.get(standing), standing, taskSeed));
+                    submitted++;
+                }
+            }
+            for (int done = 0; done < submitted; done++) {
+                PairResult result = completion.take().get();
+                Standing standing = standings.get(result.standing);
+                standing.add(result);
+                if (listener != null && !listener.onPairFinished(standing, result)) {
+                    break;
+                }
+            }
+            return standings;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // 每对对局完成后的回调
+    public interface ResultListener {
+        boolean onPairFinished(Standing standing, PairResult result);
+    }
+
+    private PairResult playPair(Standing standing, int index, long taskSeed) {
+        Random random = new Random(taskSeed);
+        Game opening = randomOpening(random);
+        PairResult result = new PairResult(index);
+        for (int colour = 0; colour < 2; colour++) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            // colour为0时first执黑
+            MatchPlayer first = MatchPlayers.create(players.get(standing.first), random.nextLong());
+            MatchPlayer second = MatchPlayers.create(players.get(standing.second), random.nextLong());
+            MatchPlayer black = colour == 0 ? first : second;
+            MatchPlayer white = colour == 0 ? second : first;
+            Game game = opening.copy();
+            result.plies += play(game, black, white);
+            String outcome = GameRecordWriter.resultOf(game);
+            boolean blackWon = outcome.equals("1-0");
+            boolean whiteWon = outcome.equals("0-1");
+            if (!blackWon && !whiteWon) {
+                result.draws++;
+            } else if (blackWon == (colour == 0)) {
+                result.wins++;
+            } else {
+                result.losses++;
+            }
+        }
+        return result;
+    }
+
+    // 随机走openingPlies步；中途结束的开局重新生成
+    private Game randomOpening(Random random) {
+        while (true) {
+            Game game = GameManager.createGame(gameType, 1);
+            for (int i = 0; i < openingPlies && !game.isOver(); i++) {
+                List<int[]> moves = game.getValidMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                int[] move = moves.get(random.nextInt(moves.size()));
+                game.placePiece(move[0], move[1]);
+            }
+            if (!game.isOver()) {
+                return game;
+            }
+        }
+    }
+
+    // 下完一局，返回走的步数
+    static int play(Game game, MatchPlayer black, MatchPlayer white) {
+        int plies = 0;
+        while (!game.isOver()) {
+            MatchPlayer mover = game.getCurrentPlayer().getPiece() == Piece.BLACK ? black : white;
+            int[] move = mover.chooseMove(game);
+            boolean moved;
+            if (move == null) {
+                moved = game instanceof ReversiGame && ((ReversiGame) game).pass();
+            } else {
+                moved = game.placePiece(move[0], move[1]);
+            }
+            if (!moved) {
+                throw new IllegalStateException(mover.getName() + " 走出了非法着法");
+            }
+            plies++;
+        }
+        return plies;
+    }
+
+    // 每对对局完成后更新SPRT，定期在标准错误输出进度，有结论时停止
+    private static ResultListener sprtListener(Sprt sprt) {
+        return (standing, result) -> {
+            sprt.addPair(result.wins, result.draws);
+            if (sprt.getPairs() % SPRT_PROGRESS_PAIRS == 0) {
+                System.err.println(sprt);
+            }
+            return sprt.status() == Sprt.CONTINUE;
+        };
+    }
+
+    public static void report(List<String> players, List<Standing> standings, double seconds) {
+        int games = 0;
+        long plies = 0;
+        for (Standing standing : standings) {
+            games += standing.games();
+            plies += standing.plies;
+        }
+        System.out.printf("对局: %d  用时: %.2fs  %.1f 局/秒  平均 %.1f 步%n",
+                games, seconds, games / seconds, games == 0 ? 0 : (double) plies / games);
+        for (Standing standing : standings) {
+            double score = standing.score();
+            double margin = standing.scoreMargin();
+            System.out.printf("%s vs %s: 胜 %d  和 %d  负 %d  得分率 %.1f%% ± %.1f%%  Elo %+.0f [%+.0f, %+.0f]%n",
+                    players.get(standing.first), players.get(standing.second),
+                    standing.wins, standing.draws, standing.losses, score * 100, margin * 100,
+                    elo(score), elo(score - margin), elo(score + margin));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> players = new ArrayList<>();
+        String gameType = null;
+        int openings = 100;
+        int openingPlies = 4;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 42L;
+        Sprt sprt = null;
+        for (String arg : args) {
+            if (arg.startsWith("--openings=")) {
+                openings = Integer.parseInt(arg.substring("--openings=".length()));
+            } else if (arg.startsWith("--opening-plies=")) {
+                openingPlies = Integer.parseInt(arg.substring("--opening-plies=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--sprt=")) {
+                String[] parts = arg.substring("--sprt=".length()).split(",");
+                double alpha = parts.length > 2 ? Double.parseDouble(parts[2]) : 0.05;
+                double beta = parts.length > 3 ? Double.parseDouble(parts[3]) : 0.05;
+                sprt = new Sprt(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), alpha, beta);
+            } else if (gameType == null) {
+                gameType = arg;
+            } else {
+                players.add(arg);
+            }
+        }
+        if (gameType == null || players.size() < 2
+                || !(gameType.equalsIgnoreCase("reversi") || gameType.equalsIgnoreCase("gomoku"))) {
+            System.err.println("用法: java Tournament reversi|gomoku 玩家1 玩家2 [玩家...] [--openings=N] "
+                    + "[--threads=N] [--opening-plies=N] [--seed=N] [--sprt=elo0,elo1[,alpha,beta]]");
+            return;
+        }
+        if (sprt != null && players.size() != 2) {
+            System.err.println("--sprt 只能用于两个玩家之间的对局");
+            return;
+        }
+        for (String player : players) {
+            MatchPlayers.validate(player);
+        }
+
+        Tournament tournament = new Tournament(gameType, players, openings, openingPlies, threads, seed);
+        long start = System.nanoTime();
+        List<Standing> standings = tournament.run(sprt == null ? null : sprtListener(sprt));
+        report(players, standings, (System.nanoTime() - start) / 1e9);
+        if (sprt != null) {
+            System.out.println(sprt);
+        }
+    }
+}
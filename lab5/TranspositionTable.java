@@ -0,0 +1,259 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 置换表：缓存搜索过的局面的深度、边界类型、分值和最佳着法，保存在堆外的direct ByteBuffer中，
+ * 几GB的表也不会增加GC的负担。多个搜索线程（例如电脑对手的预想和正式搜索）可以共用一张表。
+ *
+ * 每个桶32字节，含两个16字节的表项，每项是两个long：(key ^ data) 和 data。
+ * 读写都不加锁：写入时先写data再写key ^ data，读出时检查 (key ^ data) ^ data 是否等于key，
+ * 两个字被不同线程交错写入时校验不会通过，只会当作未命中，不会读到错误的数据。
+ *
+ * data的布局（低位到高位）：分值32位、深度8位、边界2位、着法8位（格子编号+2，0表示没有，1表示pass）、
+ * 代数8位，最高位恒为1，所以有效的data不会是0。
+ */
+public final class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER = 1; // 分值是下界（发生了beta截断）
+    public static final int UPPER = 2; // 分值是上界（没有着法超过alpha）
+    public static final int NO_MOVE = -2;
+
+    // 替换策略
+    public enum Replacement {
+        ALWAYS,          // 总是写入，替换桶中较差的一项
+        DEPTH_PREFERRED, // 只在新的深度不低于较差一项（或它来自以前的搜索）时写入
+        TWO_TIER;        // 第一项按深度优先保留，写不进去时总是写第二项
+
+        // 命令行的写法：always、depth-preferred、two-tier
+        public static Replacement parse(String text) {
+            return valueOf(text.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private static final int BUCKET_BYTES = 32;
+    private static final int SEGMENT_SHIFT = 25; // 每段2^25个桶，即1GB
+    private static final long VALID = 1L << 63;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] segments;
+    private final long buckets;
+    private final long mask;
+    private final Replacement replacement;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param bytes 表的大小，向下取到桶大小的2的幂倍，至少一个桶
+     */
+    public TranspositionTable(long bytes, Replacement replacement) {
+        long count = Long.highestOneBit(Math.max(bytes / BUCKET_BYTES, 1));
+        this.buckets = count;
+        this.mask = count - 1;
+        this.replacement = replacement;
+        long segmentBuckets = 1L << SEGMENT_SHIFT;
+        int segmentCount = (int) ((count + segmentBuckets - 1) / segmentBuckets);
+        segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long size = Math.min(segmentBuckets, count - i * segmentBuckets) * BUCKET_BYTES;
+            segments[i] = ByteBuffer.allocateDirect((int) size);
+        }
+    }
+
+    /**
+     * 开始新的一代，以前各代留下的表项在替换时优先被覆盖。单独使用的搜索每次search都会调用；
+     * 多个搜索并行共用一张表时，由调用者在整批搜索（一次赛后分析、一场车轮战、走出一步棋）开始时调用一次。
+     */
+    public synchronized void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * 查找key，命中时返回data（用score/depth/bound/move解码），未命中返回0。
+     */
+    public long probe(long key) {
+        probes.increment();
+        ByteBuffer segment = segment(key);
+        int base = offset(key);
+        for (int slot = base; slot < base + BUCKET_BYTES; slot += 16) {
+            long check = (long) LONGS.getOpaque(segment, slot);
+            long data = (long) LONGS.getOpaque(segment, slot + 8);
+            if ((check ^ data) == key && data != 0) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 保存一个局面的搜索结果。move为格子编号row*SIZE+col、Game.PASS或NO_MOVE。
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        ByteBuffer segment = segment(key);
+        int base = offset(key);
+        int current = generation;
+        long data = VALID | (long) current << 50 | (long) (move + 2) << 42 | (long) bound << 40
+                | (long) Math.min(depth, 255) << 32 | (score & 0xFFFFFFFFL);
+
+        // 同一局面的表项直接更新；新结果没有着法时保留原来的着法
+        int victim = -1;
+        int victimValue = Integer.MAX_VALUE;
+        for (int slot = base; slot < base + BUCKET_BYTES; slot += 16) {
+            long check = (long) LONGS.getOpaque(segment, slot);
+            long old = (long) LONGS.getOpaque(segment, slot + 8);
+            if ((check ^ old) == key && old != 0) {
+                if (move == NO_MOVE) {
+                    data = data & ~(0xFFL << 42) | old & (0xFFL << 42);
+                }
+                write(segment, slot, key, data);
+                return;
+            }
+            int value = value(old, current);
+            if (value < victimValue) {
+                victim = slot;
+                victimValue = value;
+            }
+        }
+
+        switch (replacement) {
+            case ALWAYS:
+                write(segment, victim, key, data);
+                return;
+            case DEPTH_PREFERRED:
+                if (depth >= victimValue) {
+                    write(segment, victim, key, data);
+                } else {
+                    skipped.increment();
+                }
+                return;
+            default:
+                long first = (long) LONGS.getOpaque(segment, base + 8);
+                if (depth >= value(first, current)) {
+                    write(segment, base, key, data);
+                } else {
+                    write(segment, base + 16, key, data);
+                }
+        }
+    }
+
+    // 表项的保留价值：空项-2，以前搜索的表项-1，否则为深度
+    private static int value(long data, int current) {
+        if (data == 0) {
+            return -2;
+        }
+        if ((int) (data >>> 50 & 0xFF) != current) {
+            return -1;
+        }
+        return depth(data);
+    }
+
+    private void write(ByteBuffer segment, int slot, long key, long data) {
+        stores.increment();
+        LONGS.setOpaque(segment, slot + 8, data);
+        LONGS.setOpaque(segment, slot, key ^ data);
+    }
+
+    private ByteBuffer segment(long key) {
+        return segments[(int) ((key & mask) >>> SEGMENT_SHIFT)];
+    }
+
+    private int offset(long key) {
+        return (int) (key & mask & ((1L << SEGMENT_SHIFT) - 1)) * BUCKET_BYTES;
+    }
+
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32 & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 40 & 0x3);
+    }
+
+    // 格子编号row*SIZE+col、Game.PASS或NO_MOVE
+    public static int move(long data) {
+        return (int) (data >>> 42 & 0xFF) - 2;
+    }
+
+    /**
+     * 局面的64位键：黑子、白子、行棋方和游戏类型。不做对称规范化，与 PositionIndex 不同，
+     * 搜索中需要的是同一个局面，而且最佳着法可以直接使用。
+     */
+    public static long key(Game game) {
+        Board board = game.getBoard();
+        long h = mix(board.toBitmask(Piece.BLACK) ^ 0x9E3779B97F4A7C15L);
+        h = mix(h ^ board.toBitmask(Piece.WHITE));
+        boolean blackToMove = game.getCurrentPlayer().getPiece() == Piece.BLACK;
+        return mix(h ^ game.getGameType().hashCode() ^ (blackToMove ? 0 : 0x5555555555555555L));
+    }
+
+    // SplitMix64的终结函数
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getSizeBytes() {
+        return buckets * BUCKET_BYTES;
+    }
+
+    public Replacement getReplacement() {
+        return replacement;
+    }
+
+    // 命中率，0到1
+    public double getHitRate() {
+        long p = probes.sum();
+        return p == 0 ? 0 : (double) hits.sum() / p;
+    }
+
+    /**
+     * 抽样前面最多8192个桶，返回非空表项的比例，以及其中属于当前一代（见newSearch）的比例，都是0到1。
+     */
+    public double[] sampleOccupancy() {
+        long sample = Math.min(buckets, 8192);
+        int current = generation;
+        long used = 0;
+        long fresh = 0;
+        for (long bucket = 0; bucket < sample; bucket++) {
+            ByteBuffer segment = segments[(int) (bucket >>> SEGMENT_SHIFT)];
+            int base = (int) (bucket & ((1L << SEGMENT_SHIFT) - 1)) * BUCKET_BYTES;
+            for (int slot = base; slot < base + BUCKET_BYTES; slot += 16) {
+                long data = (long) LONGS.getOpaque(segment, slot + 8);
+                if (data != 0) {
+                    used++;
+                    if ((int) (data >>> 50 & 0xFF) == current) {
+                        fresh++;
+                    }
+                }
+            }
+        }
+        return new double[]{(double) used / (sample * 2), (double) fresh / (sample * 2)};
+    }
+
+    public String report() {
+        double[] occupancy = sampleOccupancy();
+        return String.format("置换表: %dMB %s  查询: %d  命中率: %.1f%%  写入: %d  未写入: %d  占用: %.1f%%（当前一代 %.1f%%）%n",
+                getSizeBytes() >> 20, replacement.name().toLowerCase().replace('_', '-'), probes.sum(),
+                getHitRate() * 100, stores.sum(), skipped.sum(), occupancy[0] * 100, occupancy[1] * 100);
+    }
+
+    public void resetStats() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        skipped.reset();
+    }
+}
@@ -0,0 +1,120 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * BatchEvaluator的向量实现：每个向量的各个通道是不同的局面，位棋盘运算在所有通道上同时进行。
+ * 使用孵化中的jdk.incubator.vector模块，编译和运行都要加上 --add-modules jdk.incubator.vector：
+ *   javac --add-modules jdk.incubator.vector -cp . -d . vector/VectorBatchEvaluator.java
+ *   java --add-modules jdk.incubator.vector ...
+ * 这样BatchEvaluator.create()会返回本类，否则退回标量实现。
+ *
+ * JDK 17的Vector API还没有按通道的popcount，这里用移位相加的SWAR方法计数
+ * （不用乘法，AVX2没有64位的向量乘法）。不足一个向量的剩余局面交给标量实现。
+ * 五子棋的窗口分每个局面要数32次置位，标量实现用硬件popcnt指令反而更快，所以没有覆盖。
+ */
+public class VectorBatchEvaluator extends BatchEvaluator {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    // 与LONGS通道数相同的int向量，用于把结果窄化后写入int数组
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    @Override
+    public String getName() {
+        return "vector(" + LONGS.length() + "x64)";
+    }
+
+    @Override
+    public void discDifference(long[] mine, long[] opponent, int[] out, int count) {
+        int bound = LONGS.loopBound(count);
+        for (int i = 0; i < bound; i += LONGS.length()) {
+            LongVector m = LongVector.fromArray(LONGS, mine, i);
+            LongVector o = LongVector.fromArray(LONGS, opponent, i);
+            store(bitCount(m).sub(bitCount(o)), out, i);
+        }
+        discDifference(mine, opponent, out, bound, count);
+    }
+
+    @Override
+    public void mobility(long[] mine, long[] opponent, int[] out, int count) {
+        int bound = LONGS.loopBound(count);
+        for (int i = 0; i < bound; i += LONGS.length()) {
+            LongVector m = LongVector.fromArray(LONGS, mine, i);
+            LongVector o = LongVector.fromArray(LONGS, opponent, i);
+            LongVector empty = m.or(o).not();
+            LongVector inner = o.and(NOT_EDGE_COLUMNS);
+            LongVector moves = direction(m, inner, empty, 1)
+                    .or(direction(m, o, empty, 8))
+                    .or(direction(m, inner, empty, 7))
+                    .or(direction(m, inner, empty, 9));
+            store(bitCount(moves), out, i);
+        }
+        mobility(mine, opponent, out, bound, count);
+    }
+
+    /**
+     * 模式的三进制编号在各通道上并行计算；查权重表要按编号取数，
+     * JDK 17的gather只接受数组形式的下标，这里把编号取出后逐个查表。
+     */
+    @Override
+    public void patternScore(PatternEvaluator patterns, long[] mine, long[] opponent, int[] out, int count) {
+        int lanes = LONGS.length();
+        int bound = LONGS.loopBound(count);
+        long[] indexes = new long[lanes];
+        int[] bases = new int[lanes];
+        int[] sums = new int[lanes];
+        for (int i = 0; i < bound; i += lanes) {
+            LongVector m = LongVector.fromArray(LONGS, mine, i);
+            LongVector o = LongVector.fromArray(LONGS, opponent, i);
+            for (int lane = 0; lane < lanes; lane++) {
+                bases[lane] = PatternEvaluator.stage(mine[i + lane] | opponent[i + lane]) * PatternEvaluator.STAGE_WEIGHTS;
+                sums[lane] = 0;
+            }
+            for (int p = 0; p < PatternEvaluator.INSTANCES.length; p++) {
+                LongVector index = LongVector.zero(LONGS);
+                for (int cell : PatternEvaluator.INSTANCES[p]) {
+                    LongVector digit = m.lanewise(VectorOperators.LSHR, cell).and(1L)
+                            .or(o.lanewise(VectorOperators.LSHR, cell).and(1L).lanewise(VectorOperators.LSHL, 1));
+                    index = index.lanewise(VectorOperators.LSHL, 1).add(index).add(digit);
+                }
+                index.intoArray(indexes, 0);
+                int offset = PatternEvaluator.INSTANCE_OFFSET[p];
+                for (int lane = 0; lane < lanes; lane++) {
+                    sums[lane] += patterns.weight(bases[lane] + offset + (int) indexes[lane]);
+                }
+            }
+            System.arraycopy(sums, 0, out, i, lanes);
+        }
+        for (int i = bound; i < count; i++) {
+            out[i] = patterns.evaluate(mine[i], opponent[i]);
+        }
+    }
+
+    private static LongVector direction(LongVector mine, LongVector opponent, LongVector empty, int shift) {
+        LongVector forward = opponent.and(mine.lanewise(VectorOperators.LSHL, shift));
+        LongVector backward = opponent.and(mine.lanewise(VectorOperators.LSHR, shift));
+        for (int k = 0; k < 5; k++) {
+            forward = forward.or(opponent.and(forward.lanewise(VectorOperators.LSHL, shift)));
+            backward = backward.or(opponent.and(backward.lanewise(VectorOperators.LSHR, shift)));
+        }
+        return empty.and(forward.lanewise(VectorOperators.LSHL, shift))
+                .or(empty.and(backward.lanewise(VectorOperators.LSHR, shift)));
+    }
+
+    // 各通道的置位数
+    private static LongVector bitCount(LongVector x) {
+        x = x.sub(x.lanewise(VectorOperators.LSHR, 1).and(0x5555555555555555L));
+        x = x.and(0x3333333333333333L).add(x.lanewise(VectorOperators.LSHR, 2).and(0x3333333333333333L));
+        x = x.add(x.lanewise(VectorOperators.LSHR, 4)).and(0x0F0F0F0F0F0F0F0FL);
+        x = x.add(x.lanewise(VectorOperators.LSHR, 8));
+        x = x.add(x.lanewise(VectorOperators.LSHR, 16));
+        x = x.add(x.lanewise(VectorOperators.LSHR, 32));
+        return x.and(0x7FL);
+    }
+
+    private static void store(LongVector values, int[] out, int offset) {
+        ((IntVector) values.convertShape(VectorOperators.L2I, INTS, 0)).intoArray(out, offset);
+    }
+}